@@ -1,12 +1,63 @@
 package shogun;
 
+import shogun.metrics.FlightRecording;
 import shogun.sdk.Platform;
+import shogun.sdk.Provisioner;
 import shogun.task.TaskTray;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 public class Shogun {
     public static void main(String[] args) {
+        if (0 < args.length && "provision".equals(args[0])) {
+            // headless. doesn't need the tray nor the running instance
+            System.setProperty("java.awt.headless", "true");
+            // the report goes to the standard output. logs go to the standard error
+            System.setProperty("shogun.console.target", "System.err");
+            setLogPath();
+            System.exit(Provisioner.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        // hand off to the running instance before anything heavy gets initialized.
+        // startup benchmarks and AppCDS training runs need to start their own instance
+        // completed once the tray is up. commands from later launches received before that wait for it
+        CompletableFuture<TaskTray> taskTrayFuture = new CompletableFuture<>();
+        if (Boolean.parseBoolean(System.getProperty("shogun.singleInstance", "true"))
+                && System.getProperty("shogun.exitAfterStartup") == null) {
+            SingleInstance instance = null;
+            try {
+                instance = SingleInstance.acquire(SingleInstance.getDefaultDir(), "show");
+                if (instance == null) {
+                    // handed off to the running instance
+                    return;
+                }
+                // listen right away so that launches during startup are handed off instead of waiting for the timeout
+                instance.listen(command -> taskTrayFuture.thenAccept(TaskTray::activate));
+            } catch (IOException e) {
+                // no running instance answered. the lock or the loopback port may just be unavailable here
+                // (NFS home, unwritable directory, blocked bind...). start without single instance handling
+                System.err.println("Failed to check running instance. Starting anyway: " + e);
+                if (instance != null) {
+                    instance.close();
+                }
+            }
+        }
+
+        setLogPath();
+
+        FlightRecording.startIfConfigured(Paths.get(System.getProperty("log.path")));
+
+        Platform.isMac(() -> System.setProperty("apple.awt.UIElement", "true"));
+        TaskTray taskTray = new TaskTray();
+        taskTrayFuture.complete(taskTray);
+        taskTray.show();
+    }
+
+    private static void setLogPath() {
         // Set ${log.path} in logback.xml
         // Use of Platform.isMac should be avoided here because log.path need to be set before logback gets initialized
         if (System.getProperty("os.name").toLowerCase().matches("^.*(mac|darwin).*$")) {
@@ -16,8 +67,5 @@ public class Shogun {
             // Windows or  Linux
             System.setProperty("log.path", System.getProperty("user.home") + "/Shogun/Logs".replaceAll("/", File.separator));
         }
-
-        Platform.isMac(() -> System.setProperty("apple.awt.UIElement", "true"));
-        new TaskTray().show();
     }
 }
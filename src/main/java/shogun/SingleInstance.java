@@ -0,0 +1,179 @@
+package shogun;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Keeps Shogun to one instance per user.<br>
+ * The first instance holds a lock on instance.lock and listens on a loopback port written to instance.port. Later
+ * launches pass their command to the running instance and quit.<br>
+ * This class runs before logback gets initialized. Don't log from here.
+ */
+final class SingleInstance implements Closeable {
+    private static final int CONNECT_TIMEOUT_MILLIS = 200;
+    private static final int READ_TIMEOUT_MILLIS = 1000;
+    // how long to wait for another instance that is still starting up
+    private static final long STARTUP_WAIT_MILLIS = 3000;
+
+    private final Path portFile;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private ServerSocket serverSocket;
+
+    private SingleInstance(Path dir, FileChannel lockChannel, FileLock lock) {
+        this.portFile = dir.resolve("instance.port");
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * Same as Platform.getShogunDir(). Platform is not used here since it initializes logback.
+     *
+     * @return directory to keep the lock and port files
+     */
+    static Path getDefaultDir() {
+        String home = System.getProperty("user.home");
+        return System.getProperty("os.name").toLowerCase().matches("^.*(mac|darwin).*$") ?
+                Paths.get(home, "Library", "Application Support", "Shogun") : Paths.get(home, "Shogun");
+    }
+
+    /**
+     * @param dir     directory to keep the lock and port files
+     * @param command command to be passed to the running instance
+     * @return acquired instance, or null if the command is handed off to the running instance
+     * @throws IOException if neither acquired nor handed off
+     */
+    static SingleInstance acquire(Path dir, String command) throws IOException {
+        long deadline = System.nanoTime() + STARTUP_WAIT_MILLIS * 1_000_000;
+        while (true) {
+            if (handOff(dir.resolve("instance.port"), command)) {
+                return null;
+            }
+            SingleInstance instance = tryLock(dir);
+            if (instance != null) {
+                return instance;
+            }
+            // another instance holds the lock but is not listening yet
+            if (deadline - System.nanoTime() < 0) {
+                throw new IOException("Running instance didn't respond.");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for running instance.", e);
+            }
+        }
+    }
+
+    private static SingleInstance tryLock(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel channel = FileChannel.open(dir.resolve("instance.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = channel.tryLock();
+        if (lock == null) {
+            channel.close();
+            return null;
+        }
+        return new SingleInstance(dir, channel, lock);
+    }
+
+    /**
+     * @param portFile file the running instance wrote its port and token to
+     * @param command  command to be passed
+     * @return true if the running instance accepted the command
+     */
+    static boolean handOff(Path portFile, String command) {
+        if (!Files.exists(portFile)) {
+            return false;
+        }
+        try {
+            List<String> lines = Files.readAllLines(portFile, StandardCharsets.UTF_8);
+            int port = Integer.parseInt(lines.get(0));
+            String token = lines.get(1);
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                writer.write(token + " " + command + "\n");
+                writer.flush();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                return "OK".equals(reader.readLine());
+            }
+        } catch (IOException | RuntimeException e) {
+            // stale port file, or the instance is shutting down
+            return false;
+        }
+    }
+
+    /**
+     * Starts accepting commands from later launches.
+     *
+     * @param handler called with the command in the listener thread
+     * @throws IOException if failed to listen
+     */
+    void listen(Consumer<String> handler) throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        String token = UUID.randomUUID().toString();
+        Path tempFile = Files.createTempFile(portFile.getParent(), "instance", ".tmp");
+        Files.write(tempFile, List.of(String.valueOf(serverSocket.getLocalPort()), token), StandardCharsets.UTF_8);
+        Files.move(tempFile, portFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Thread thread = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    String line = reader.readLine();
+                    if (line != null && line.startsWith(token + " ")) {
+                        Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                        writer.write("OK\n");
+                        writer.flush();
+                        handler.accept(line.substring(token.length() + 1));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (!serverSocket.isClosed()) {
+                        System.err.println("Failed to accept command: " + e);
+                    }
+                }
+            }
+        });
+        thread.setName("Shogun Single Instance Listener");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+                Files.deleteIfExists(portFile);
+            }
+            if (lock.isValid()) {
+                lock.release();
+            }
+            lockChannel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
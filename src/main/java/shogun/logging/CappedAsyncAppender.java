@@ -0,0 +1,59 @@
+package shogun.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+
+/**
+ * Async appender truncating messages longer than maxMessageLength before they are queued, so that a full queue
+ * never holds more than queueSize capped messages.<br>
+ * usage: &lt;maxMessageLength&gt;65536&lt;/maxMessageLength&gt;
+ */
+public class CappedAsyncAppender extends AsyncAppender {
+    private int maxMessageLength = 65536;
+
+    public void setMaxMessageLength(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        super.append(cap(event, maxMessageLength, isIncludeCallerData()));
+    }
+
+    static ILoggingEvent cap(ILoggingEvent event, int maxLength, boolean includeCallerData) {
+        String message = event.getFormattedMessage();
+        String capped = cap(message, maxLength);
+        if (capped == message) {
+            return event;
+        }
+        LoggingEvent copy = new LoggingEvent();
+        copy.setLoggerName(event.getLoggerName());
+        copy.setLoggerContextRemoteView(event.getLoggerContextVO());
+        copy.setLevel(event.getLevel());
+        copy.setThreadName(event.getThreadName());
+        copy.setTimeStamp(event.getTimeStamp());
+        copy.setMessage(capped);
+        if (event.getThrowableProxy() instanceof ThrowableProxy) {
+            copy.setThrowableProxy((ThrowableProxy) event.getThrowableProxy());
+        }
+        copy.setMarker(event.getMarker());
+        copy.setMDCPropertyMap(event.getMDCPropertyMap());
+        if (includeCallerData) {
+            copy.setCallerData(event.getCallerData());
+        }
+        return copy;
+    }
+
+    static String cap(String message, int maxLength) {
+        if (message == null || message.length() <= maxLength) {
+            return message;
+        }
+        return message.substring(0, maxLength) + "... (" + (message.length() - maxLength) + " chars truncated)";
+    }
+}
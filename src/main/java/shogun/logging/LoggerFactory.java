@@ -1,12 +1,48 @@
 package shogun.logging;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
 import org.slf4j.Logger;
 
 public final class LoggerFactory {
+    private static final StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
     private LoggerFactory() {
     }
 
     public static Logger getLogger() {
-        return org.slf4j.LoggerFactory.getLogger(new Throwable().getStackTrace()[1].getClassName());
+        // no need to capture the whole stack trace to find the caller
+        return org.slf4j.LoggerFactory.getLogger(walker.getCallerClass());
+    }
+
+    /**
+     * @param loggerName logger name, or ROOT
+     * @return effective level of the logger
+     */
+    public static String getLevel(String loggerName) {
+        return context().getLogger(loggerName).getEffectiveLevel().toString();
+    }
+
+    /**
+     * Changes the level at run time.
+     *
+     * @param loggerName logger name, or ROOT
+     * @param level      level, or null to inherit the level of the parent
+     * @throws IllegalArgumentException if the level is unknown, or null for ROOT
+     */
+    public static void setLevel(String loggerName, String level) {
+        Level newLevel = level == null || level.isBlank() ? null : Level.toLevel(level.trim(), null);
+        if (newLevel == null && level != null && !level.isBlank()) {
+            throw new IllegalArgumentException("Unknown level: " + level);
+        }
+        ch.qos.logback.classic.Logger logger = context().getLogger(loggerName);
+        if (newLevel == null && Logger.ROOT_LOGGER_NAME.equalsIgnoreCase(logger.getName())) {
+            throw new IllegalArgumentException("ROOT needs a level");
+        }
+        logger.setLevel(newLevel);
+    }
+
+    private static LoggerContext context() {
+        return (LoggerContext) org.slf4j.LoggerFactory.getILoggerFactory();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package shogun.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Process launched by SDKLauncher. The event lasts until the process exits.
+ */
+@Name("shogun.Command")
+@Label("Command")
+@Category("Shogun")
+@Description("Process launched by Shogun")
+public final class CommandEvent extends jdk.jfr.Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Spawn Time")
+    @Description("Time taken to start the process")
+    @Timespan(Timespan.NANOSECONDS)
+    public long spawnTime;
+
+    @Label("Exit Code")
+    public int exitCode = -1;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputSize;
+}
@@ -0,0 +1,20 @@
+package shogun.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Batch of menu updates run on the AWT event dispatch thread. A long event here is what users see as a freeze.
+ */
+@Name("shogun.EventQueueTask")
+@Label("Event Queue Task")
+@Category("Shogun")
+public final class EventQueueTaskEvent extends jdk.jfr.Event {
+    @Label("Queue Time")
+    @Description("Time from submission until the event dispatch thread picked the task up")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueTime;
+}
@@ -0,0 +1,63 @@
+package shogun.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Continuous flight recording enabled with -Dshogun.jfr=true.<br>
+ * The recording keeps the last -Dshogun.jfr.maxAge minutes (default 60), up to -Dshogun.jfr.maxSize MB (default 64),
+ * in the JFR repository on disk, and is written to shogun.jfr in the log directory on exit. While Shogun is running,
+ * take a snapshot with: jcmd [pid] JFR.dump name=Shogun filename=[file]
+ */
+public final class FlightRecording {
+    private final static Logger logger = LoggerFactory.getLogger();
+    static final String NAME = "Shogun";
+
+    private FlightRecording() {
+    }
+
+    /**
+     * @param directory directory to write shogun.jfr on exit
+     * @return started recording, or null if not enabled
+     */
+    public static Recording startIfConfigured(Path directory) {
+        if (!Boolean.getBoolean("shogun.jfr")) {
+            return null;
+        }
+        try {
+            return start(directory.resolve("shogun.jfr"),
+                    Duration.ofMinutes(Long.getLong("shogun.jfr.maxAge", 60)),
+                    Long.getLong("shogun.jfr.maxSize", 64) * 1024 * 1024);
+        } catch (IOException | ParseException | RuntimeException e) {
+            logger.warn("Failed to start flight recording", e);
+            return null;
+        }
+    }
+
+    static Recording start(Path destination, Duration maxAge, long maxSize) throws IOException, ParseException {
+        Files.createDirectories(destination.getParent());
+        // the "default" settings are meant to be always on, with around 1% overhead
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName(NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize);
+        recording.setDestination(destination);
+        recording.setDumpOnExit(true);
+        recording.enable(CommandEvent.class);
+        recording.enable(JDKProbeEvent.class);
+        recording.enable(MenuRefreshEvent.class);
+        recording.enable(EventQueueTaskEvent.class);
+        recording.start();
+        logger.info("Flight recording started. Will be written to {}", destination);
+        return recording;
+    }
+}
@@ -0,0 +1,21 @@
+package shogun.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Probe of a JDK not managed by SDKMAN!.
+ */
+@Name("shogun.JDKProbe")
+@Label("JDK Probe")
+@Category("Shogun")
+@Description("java -version run against a JDK found by the scanner")
+public final class JDKProbeEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Identifier")
+    public String identifier;
+}
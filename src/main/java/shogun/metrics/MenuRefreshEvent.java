@@ -0,0 +1,19 @@
+package shogun.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Rebuild of the versions menu of a candidate.
+ */
+@Name("shogun.MenuRefresh")
+@Label("Menu Refresh")
+@Category("Shogun")
+public final class MenuRefreshEvent extends jdk.jfr.Event {
+    @Label("Candidate")
+    public String candidate;
+
+    @Label("Versions")
+    public int versions;
+}
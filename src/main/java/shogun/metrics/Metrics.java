@@ -0,0 +1,122 @@
+package shogun.metrics;
+
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters, latency histograms and in-flight gauges of operations, split by operation type.<br>
+ * usage:
+ * <pre>
+ * try (Metrics.Sample sample = Metrics.start("shogun_sdk_command", "list")) {
+ *     ...
+ *     sample.failed(); // if the operation failed
+ * }
+ * </pre>
+ * Published through JMX as shogun:type=Metrics, and as Prometheus text on the loopback port specified with
+ * -Dshogun.metrics.port.
+ */
+public final class Metrics {
+    private final static Logger logger = LoggerFactory.getLogger();
+    // upper bounds of histogram buckets in milliseconds
+    static final long[] BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+    private static final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * @param name metric name
+     * @param type operation type
+     * @return started sample. close to record the elapsed time
+     */
+    public static Sample start(String name, String type) {
+        return new Sample(timers.computeIfAbsent(name, e -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, e -> new Timer()));
+    }
+
+    /**
+     * @return snapshot of all timers keyed by name, then by type
+     */
+    static Map<String, Map<String, Timer>> timers() {
+        Map<String, Map<String, Timer>> snapshot = new TreeMap<>();
+        timers.forEach((name, byType) -> snapshot.put(name, new TreeMap<>(byType)));
+        return snapshot;
+    }
+
+    static void clear() {
+        timers.clear();
+    }
+
+    /**
+     * Registers the MBean, and starts the Prometheus endpoint if configured.
+     */
+    public static void publish() {
+        MetricsMBeanImpl.register();
+        PrometheusEndpoint.startIfConfigured();
+    }
+
+    public static final class Sample implements AutoCloseable {
+        private final Timer timer;
+        private final long start = System.nanoTime();
+        private boolean failed = false;
+
+        private Sample(Timer timer) {
+            this.timer = timer;
+            timer.inFlight.increment();
+        }
+
+        /**
+         * Marks the operation as failed.
+         */
+        public void failed() {
+            failed = true;
+        }
+
+        @Override
+        public void close() {
+            timer.inFlight.decrement();
+            timer.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    static final class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder inFlight = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+        // the last bucket is +Inf
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length + 1);
+
+        void record(long nanos, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            sumNanos.add(nanos);
+            int bucket = BUCKETS.length;
+            // compared in nanoseconds. truncated milliseconds would put 1.9 ms in the 1 ms bucket
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (nanos <= TimeUnit.MILLISECONDS.toNanos(BUCKETS[i])) {
+                    bucket = i;
+                    break;
+                }
+            }
+            buckets.incrementAndGet(bucket);
+            if (logger.isTraceEnabled()) {
+                logger.trace("{} ns, failed: {}", nanos, failed);
+            }
+        }
+
+        double meanMillis() {
+            long c = count.sum();
+            return c == 0 ? 0 : sumNanos.sum() / 1_000_000d / c;
+        }
+    }
+}
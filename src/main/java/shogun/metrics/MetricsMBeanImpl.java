@@ -0,0 +1,77 @@
+package shogun.metrics;
+
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+final class MetricsMBeanImpl implements MetricsMXBean {
+    private final static Logger logger = LoggerFactory.getLogger();
+    static final String OBJECT_NAME = "shogun:type=Metrics";
+
+    static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBeanImpl(), name);
+            }
+        } catch (JMException e) {
+            logger.warn("Failed to register {}", OBJECT_NAME, e);
+        }
+    }
+
+    private static <T> Map<String, T> collect(Function<Metrics.Timer, T> function) {
+        Map<String, T> map = new TreeMap<>();
+        Metrics.timers().forEach((name, byType) ->
+                byType.forEach((type, timer) -> map.put(name + "{type=" + type + "}", function.apply(timer))));
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return collect(e -> e.count.sum());
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        return collect(e -> e.errors.sum());
+    }
+
+    @Override
+    public Map<String, Long> getInFlight() {
+        return collect(e -> e.inFlight.sum());
+    }
+
+    @Override
+    public Map<String, Double> getMeanMillis() {
+        return collect(Metrics.Timer::meanMillis);
+    }
+
+    @Override
+    public String getPrometheusText() {
+        return PrometheusEndpoint.format();
+    }
+
+    @Override
+    public String getLogLevel() {
+        return LoggerFactory.getLevel(Logger.ROOT_LOGGER_NAME);
+    }
+
+    @Override
+    public void setLogLevel(String level) {
+        setLoggerLevel(Logger.ROOT_LOGGER_NAME, level);
+    }
+
+    @Override
+    public void setLoggerLevel(String loggerName, String level) {
+        LoggerFactory.setLevel(loggerName, level);
+        logger.info("Log level of {} set to {}", loggerName, LoggerFactory.getLevel(loggerName));
+    }
+}
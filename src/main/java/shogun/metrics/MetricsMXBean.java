@@ -0,0 +1,37 @@
+package shogun.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link Metrics}. Keys are [metric name]{type=[operation type]}.
+ */
+public interface MetricsMXBean {
+    Map<String, Long> getCounts();
+
+    Map<String, Long> getErrors();
+
+    Map<String, Long> getInFlight();
+
+    Map<String, Double> getMeanMillis();
+
+    /**
+     * @return all metrics in Prometheus text format
+     */
+    String getPrometheusText();
+
+    /**
+     * @return level of the root logger
+     */
+    String getLogLevel();
+
+    /**
+     * @param level new level of the root logger
+     */
+    void setLogLevel(String level);
+
+    /**
+     * @param loggerName logger name
+     * @param level      new level, or empty to inherit the level of the parent
+     */
+    void setLoggerLevel(String loggerName, String level);
+}
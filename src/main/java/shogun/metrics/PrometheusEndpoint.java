@@ -0,0 +1,88 @@
+package shogun.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Serves {@link Metrics} in Prometheus text format at http://127.0.0.1:[port]/metrics.
+ */
+final class PrometheusEndpoint {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private static HttpServer server;
+
+    private PrometheusEndpoint() {
+    }
+
+    static synchronized void startIfConfigured() {
+        Integer port = Integer.getInteger("shogun.metrics.port");
+        if (port == null || server != null) {
+            return;
+        }
+        try {
+            server = start(port);
+        } catch (IOException e) {
+            logger.warn("Failed to start metrics endpoint on port {}", port, e);
+        }
+    }
+
+    static HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            try {
+                byte[] body = format().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        logger.info("Serving metrics on http://{}:{}/metrics", server.getAddress().getHostString(), server.getAddress().getPort());
+        return server;
+    }
+
+    static String format() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Map<String, Metrics.Timer>> entry : Metrics.timers().entrySet()) {
+            String name = entry.getKey();
+            text.append("# TYPE ").append(name).append("_seconds histogram\n");
+            entry.getValue().forEach((type, timer) -> {
+                long cumulative = 0;
+                for (int i = 0; i <= Metrics.BUCKETS.length; i++) {
+                    cumulative += timer.buckets.get(i);
+                    String le = i < Metrics.BUCKETS.length ? String.valueOf(Metrics.BUCKETS[i] / 1000d) : "+Inf";
+                    text.append(name).append("_seconds_bucket{type=\"").append(escape(type)).append("\",le=\"").append(le)
+                            .append("\"} ").append(cumulative).append('\n');
+                }
+                text.append(name).append("_seconds_sum").append(label(type)).append(timer.sumNanos.sum() / 1_000_000_000d).append('\n');
+                text.append(name).append("_seconds_count").append(label(type)).append(timer.count.sum()).append('\n');
+            });
+            text.append("# TYPE ").append(name).append("_errors_total counter\n");
+            entry.getValue().forEach((type, timer) ->
+                    text.append(name).append("_errors_total").append(label(type)).append(timer.errors.sum()).append('\n'));
+            text.append("# TYPE ").append(name).append("_in_flight gauge\n");
+            entry.getValue().forEach((type, timer) ->
+                    text.append(name).append("_in_flight").append(label(type)).append(timer.inFlight.sum()).append('\n'));
+        }
+        return text.toString();
+    }
+
+    private static String label(String type) {
+        return "{type=\"" + escape(type) + "\"} ";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,193 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SHA-256 digests of archives in the archive store.<br>
+ * A verified digest is kept in [archive].sha256 together with the archive size so that archives reused from the store
+ * don't need to be hashed again.
+ */
+final class ArchiveChecksum {
+    private final static Logger logger = LoggerFactory.getLogger();
+    /**
+     * Header SDKMAN! publishes the checksum with. Also sent by {@link ArchiveMirror}.
+     */
+    static final String HEADER = "X-Sdkman-Checksum-SHA-256";
+
+    enum Verification {
+        /**
+         * matches the expected checksum
+         */
+        VERIFIED,
+        /**
+         * no checksum to verify against
+         */
+        UNVERIFIED,
+        /**
+         * doesn't match the expected checksum
+         */
+        MISMATCH
+    }
+
+    private ArchiveChecksum() {
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    static Path sidecar(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + ".sha256");
+    }
+
+    /**
+     * @param archive archive
+     * @return verified digest of the archive, or null if not recorded or the archive has changed since
+     */
+    @Nullable
+    static String read(Path archive) {
+        Path sidecar = sidecar(archive);
+        try {
+            if (!Files.exists(sidecar) || !Files.exists(archive)) {
+                return null;
+            }
+            String[] split = Files.readString(sidecar, StandardCharsets.UTF_8).trim().split(" ");
+            if (split.length == 2 && Long.parseLong(split[1]) == Files.size(archive)) {
+                return split[0];
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("Failed to read {}", sidecar, e);
+        }
+        return null;
+    }
+
+    /**
+     * @param archive archive
+     * @param hex     verified digest of the archive
+     */
+    static void write(Path archive, String hex) {
+        Path sidecar = sidecar(archive);
+        try {
+            Path tempFile = Files.createTempFile(archive.getParent(), archive.getFileName().toString(), ".sha256.tmp");
+            Files.writeString(tempFile, hex + " " + Files.size(archive), StandardCharsets.UTF_8);
+            Files.move(tempFile, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write {}", sidecar, e);
+        }
+    }
+
+    /**
+     * Reads the checksum SDKMAN! recorded from the response headers of the last download, if any.
+     *
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @return checksum in lower case hex, or null if not recorded
+     */
+    @Nullable
+    static String recorded(String candidate, String identifier) {
+        return recorded(headersFile(candidate, identifier));
+    }
+
+    /**
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @return $SDKMAN_DIR/var/metadata/[candidate]-[identifier].headers SDKMAN! records the response headers in
+     */
+    static Path headersFile(String candidate, String identifier) {
+        return Paths.get(SDK.getSDK_MAN_DIR(), "var", "metadata", candidate + "-" + identifier + ".headers");
+    }
+
+    @Nullable
+    static String recorded(Path headersFile) {
+        if (!Files.exists(headersFile)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(headersFile, StandardCharsets.UTF_8);
+            String prefix = HEADER.toLowerCase(Locale.ROOT) + ":";
+            for (String line : lines) {
+                if (line.toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                    return line.substring(prefix.length()).trim().toLowerCase(Locale.ROOT);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to read {}", headersFile, e);
+        }
+        return null;
+    }
+
+    /**
+     * Verifies an archive in the store. The archive is hashed only when no verified digest is recorded. Nothing is
+     * recorded unless the archive matches the expected checksum.
+     *
+     * @param archive  archive
+     * @param expected expected checksum, or null if unknown
+     * @return UNVERIFIED if expected is null
+     * @throws IOException if failed to read the archive
+     */
+    static Verification verify(Path archive, @Nullable String expected) throws IOException {
+        if (expected == null) {
+            return Verification.UNVERIFIED;
+        }
+        String actual = read(archive);
+        if (actual == null) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(archive)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            actual = toHex(digest.digest());
+            if (expected.equalsIgnoreCase(actual)) {
+                write(archive, actual);
+            }
+        }
+        if (!expected.equalsIgnoreCase(actual)) {
+            logger.warn("Checksum mismatch: {} expected {} but was {}", archive, expected, actual);
+            return Verification.MISMATCH;
+        }
+        return Verification.VERIFIED;
+    }
+
+    /**
+     * Deletes the archive and its digest.
+     *
+     * @param archive archive
+     */
+    static void discard(Path archive) {
+        try {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(sidecar(archive));
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}", archive, e);
+        }
+    }
+}
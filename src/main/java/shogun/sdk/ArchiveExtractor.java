@@ -0,0 +1,699 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+import shogun.metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Installs an archive from the store into candidates/[candidate]/[identifier] without sdk install.<br>
+ * Zip entries are inflated in parallel on -Dshogun.extract.parallelism threads (default: number of processors).
+ * Tar.gz archives are inflated in a single stream, and the files are written in parallel. The archive is extracted
+ * into a staging directory beside the destination, and renamed to the destination once complete. Unix permissions and
+ * symbolic links are kept. As the post-installation hooks of SDKMAN! do, the single top level directory of the
+ * archive becomes the version directory, and macOS JDK bundles are reduced to Contents/Home.<br>
+ * -Dshogun.extract=false leaves the installation to sdk install.
+ */
+final class ArchiveExtractor {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // tar entries up to this size are read in memory and written on the pool
+    private static final int SMALL_FILE_SIZE = 1024 * 1024;
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFLNK = 0120000;
+    private static final int S_IFDIR = 0040000;
+
+    private final int parallelism;
+
+    ArchiveExtractor(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Installs the archive in the store unless -Dshogun.extract=false. Sets the version as default if the candidate
+     * has no default yet, as sdk install does. The archive must have been verified against the checksum published by
+     * SDKMAN!.
+     *
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @param archive    archive in the store
+     * @return true if installed. false if sdk install needs to be used instead
+     */
+    static boolean installIfConfigured(String candidate, String identifier, Path archive) {
+        if (!Boolean.parseBoolean(System.getProperty("shogun.extract", "true")) || !Files.isRegularFile(archive)) {
+            return false;
+        }
+        Path candidateDir = Paths.get(SDK.getSDK_MAN_DIR(), "candidates", candidate);
+        Path versionDir = candidateDir.resolve(identifier);
+        try (Metrics.Sample sample = Metrics.start("shogun_extract", candidate)) {
+            try {
+                long start = System.currentTimeMillis();
+                new ArchiveExtractor(Integer.getInteger("shogun.extract.parallelism", Runtime.getRuntime().availableProcessors()))
+                        .extract(archive, versionDir);
+                logger.info("Extracted {} to {} in {} ms", archive, versionDir, System.currentTimeMillis() - start);
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.info("Failed to extract {}. Falling back to sdk install", archive, e);
+                sample.failed();
+                return false;
+            }
+        }
+        if (!Files.exists(candidateDir.resolve("current"), LinkOption.NOFOLLOW_LINKS)
+                && !SDK.linkCurrent(candidateDir, identifier)) {
+            logger.warn("Failed to set {} {} as default", candidate, identifier);
+        }
+        return true;
+    }
+
+    /**
+     * @param archive     zip or tar.gz archive
+     * @param destination directory to be created
+     * @throws IOException if failed to extract. the destination is not created
+     */
+    void extract(Path archive, Path destination) throws IOException {
+        destination = destination.toAbsolutePath();
+        if (Files.exists(destination, LinkOption.NOFOLLOW_LINKS)) {
+            throw new FileAlreadyExistsException(destination.toString());
+        }
+        Files.createDirectories(destination.getParent());
+        String stagingPrefix = "." + destination.getFileName() + ".staging";
+        // left by an extraction interrupted last time
+        try (var stream = Files.newDirectoryStream(destination.getParent(), e -> e.getFileName().toString().startsWith(stagingPrefix))) {
+            for (Path stale : stream) {
+                delete(stale);
+            }
+        }
+        // same filesystem as the destination so that the result can be renamed
+        Path staging = Files.createTempDirectory(destination.getParent(), stagingPrefix);
+        try {
+            Extraction extraction = new Extraction(staging.toRealPath());
+            try {
+                byte[] magic = new byte[4];
+                try (InputStream in = Files.newInputStream(archive)) {
+                    if (in.readNBytes(magic, 0, magic.length) < 2) {
+                        throw new IOException("Not an archive: " + archive);
+                    }
+                }
+                if (magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+                    extractZip(archive, extraction);
+                } else if ((magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+                    extractTarGz(archive, extraction);
+                } else {
+                    throw new IOException("Unsupported archive format: " + archive);
+                }
+                extraction.finish();
+            } finally {
+                extraction.close();
+            }
+            Files.move(root(extraction.root), destination, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (Files.exists(staging, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    delete(staging);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete {}", staging, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param staging staging directory
+     * @return the directory to become the version directory
+     * @throws IOException if failed to list the staging directory
+     */
+    @NotNull
+    static Path root(Path staging) throws IOException {
+        Path root = staging;
+        List<Path> children = new ArrayList<>();
+        try (var stream = Files.list(staging)) {
+            stream.forEach(children::add);
+        }
+        if (children.size() == 1 && Files.isDirectory(children.get(0), LinkOption.NOFOLLOW_LINKS)) {
+            root = children.get(0);
+        }
+        Path home = root.resolve("Contents").resolve("Home");
+        if (!Files.isDirectory(root.resolve("bin")) && Files.isDirectory(home.resolve("bin"), LinkOption.NOFOLLOW_LINKS)) {
+            root = home;
+        }
+        return root;
+    }
+
+    private void extractZip(Path archive, Extraction extraction) throws IOException {
+        Map<String, Integer> modes = unixModes(archive);
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                int mode = modes.getOrDefault(entry.getName(), 0);
+                Path path = extraction.resolve(entry.getName());
+                if (entry.isDirectory() || (mode & S_IFMT) == S_IFDIR) {
+                    extraction.directory(path, mode);
+                } else if ((mode & S_IFMT) == S_IFLNK) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        extraction.symbolicLink(path, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                } else {
+                    // ZipFile is safe to read from several threads. each entry inflates on its own thread
+                    extraction.file(path, mode, () -> {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            write(in, path);
+                        }
+                    });
+                }
+            }
+            extraction.await();
+        }
+    }
+
+    /**
+     * Reads the unix modes from the central directory, which {@link ZipFile} doesn't expose.
+     *
+     * @param archive zip archive
+     * @return unix modes by entry name, for entries created on unix
+     * @throws IOException if the central directory is broken
+     */
+    @NotNull
+    static Map<String, Integer> unixModes(Path archive) throws IOException {
+        Map<String, Integer> modes = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // end of central directory record, followed by a comment up to 65535 bytes
+            int tailSize = (int) Math.min(size, 22 + 65535);
+            ByteBuffer tail = read(channel, size - tailSize, tailSize);
+            int eocd = -1;
+            for (int i = tailSize - 22; 0 <= i; i--) {
+                if (tail.getInt(i) == 0x06054b50) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new IOException("End of central directory not found: " + archive);
+            }
+            long entries = Short.toUnsignedLong(tail.getShort(eocd + 10));
+            long directorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+            long directoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+            if (directoryOffset == 0xffffffffL || directorySize == 0xffffffffL || entries == 0xffff) {
+                // zip64 end of central directory locator precedes the record
+                if (eocd < 20 || tail.getInt(eocd - 20) != 0x07064b50) {
+                    throw new IOException("Zip64 end of central directory locator not found: " + archive);
+                }
+                ByteBuffer zip64 = read(channel, tail.getLong(eocd - 20 + 8), 56);
+                if (zip64.getInt(0) != 0x06064b50) {
+                    throw new IOException("Zip64 end of central directory not found: " + archive);
+                }
+                directorySize = zip64.getLong(40);
+                directoryOffset = zip64.getLong(48);
+            }
+            if (Integer.MAX_VALUE < directorySize) {
+                throw new IOException("Central directory too large: " + archive);
+            }
+            ByteBuffer directory = read(channel, directoryOffset, (int) directorySize);
+            int offset = 0;
+            while (offset + 46 <= directory.limit() && directory.getInt(offset) == 0x02014b50) {
+                int madeBy = Short.toUnsignedInt(directory.getShort(offset + 4));
+                int nameLength = Short.toUnsignedInt(directory.getShort(offset + 28));
+                int extraLength = Short.toUnsignedInt(directory.getShort(offset + 30));
+                int commentLength = Short.toUnsignedInt(directory.getShort(offset + 32));
+                int externalAttributes = directory.getInt(offset + 38);
+                byte[] name = new byte[nameLength];
+                directory.position(offset + 46);
+                directory.get(name);
+                // 3: unix. the mode is in the high 16 bits
+                if (madeBy >> 8 == 3) {
+                    modes.put(new String(name, StandardCharsets.UTF_8), externalAttributes >>> 16);
+                }
+                offset += 46 + nameLength + extraLength + commentLength;
+            }
+        }
+        return modes;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    private void extractTarGz(Path archive, Extraction extraction) throws IOException {
+        // bounds the memory held by small files waiting to be written
+        Semaphore inFlight = new Semaphore(parallelism * 4);
+        try (InputStream in = new BufferedInputStream(new GZIPInputStream(Files.newInputStream(archive), BUFFER_SIZE), BUFFER_SIZE)) {
+            byte[] header = new byte[512];
+            String longName = null;
+            String longLink = null;
+            Map<String, String> pax = new HashMap<>();
+            while (true) {
+                if (in.readNBytes(header, 0, 512) < 512) {
+                    throw new EOFException("Unexpected end of " + archive);
+                }
+                if (isZero(header)) {
+                    // end of archive
+                    break;
+                }
+                char type = (char) header[156];
+                long size = pax.containsKey("size") ? Long.parseLong(pax.get("size")) : parseNumber(header, 124, 12);
+                String name = longName != null ? longName : pax.getOrDefault("path", tarName(header));
+                String link = longLink != null ? longLink : pax.getOrDefault("linkpath", string(header, 157, 100));
+                int mode = (int) parseNumber(header, 100, 8) & 07777;
+                switch (type) {
+                    case 'L':
+                        longName = trimNull(new String(readEntry(in, size), StandardCharsets.UTF_8));
+                        continue;
+                    case 'K':
+                        longLink = trimNull(new String(readEntry(in, size), StandardCharsets.UTF_8));
+                        continue;
+                    case 'x':
+                        pax = parsePax(readEntry(in, size));
+                        continue;
+                    case 'g':
+                        readEntry(in, size);
+                        continue;
+                    default:
+                }
+                longName = null;
+                longLink = null;
+                pax = new HashMap<>();
+                Path path = extraction.resolve(name);
+                switch (type) {
+                    case '5':
+                        extraction.directory(path, mode);
+                        break;
+                    case '2':
+                        extraction.symbolicLink(path, link);
+                        break;
+                    case '1':
+                        extraction.hardLink(path, extraction.resolve(link));
+                        break;
+                    case '0':
+                    case '\0':
+                    case '7':
+                        if (size <= SMALL_FILE_SIZE) {
+                            byte[] content = readEntry(in, size);
+                            inFlight.acquireUninterruptibly();
+                            extraction.file(path, mode, () -> {
+                                try {
+                                    write(new ByteArrayInputStream(content), path);
+                                } finally {
+                                    inFlight.release();
+                                }
+                            });
+                        } else {
+                            extraction.parentOf(path);
+                            write(new BoundedInputStream(in, size), path);
+                            extraction.mode(path, mode);
+                            skip(in, padding(size));
+                        }
+                        break;
+                    default:
+                        // devices and fifos are not part of candidates
+                        logger.debug("Skipping {} of type {}", name, type);
+                        skip(in, size + padding(size));
+                }
+            }
+            extraction.await();
+        }
+    }
+
+    private static boolean isZero(byte[] header) {
+        for (byte b : header) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String tarName(byte[] header) {
+        String name = string(header, 0, 100);
+        // ustar splits long names into prefix and name
+        if (string(header, 257, 5).equals("ustar")) {
+            String prefix = string(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private static String string(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static String trimNull(String string) {
+        int end = string.indexOf('\0');
+        return end < 0 ? string : string.substring(0, end);
+    }
+
+    /**
+     * @return octal number, or base-256 number if the high bit of the first byte is set
+     */
+    static long parseNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        String octal = string(header, offset, length).trim();
+        try {
+            return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Broken tar header: " + octal, e);
+        }
+    }
+
+    private static Map<String, String> parsePax(byte[] content) throws IOException {
+        // "<length> <key>=<value>\n" records
+        Map<String, String> pax = new HashMap<>();
+        int offset = 0;
+        while (offset < content.length) {
+            int space = offset;
+            while (space < content.length && content[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(content, offset, space - offset, StandardCharsets.UTF_8));
+            } catch (NumberFormatException e) {
+                throw new IOException("Broken pax header", e);
+            }
+            if (length <= 0 || content.length < offset + length) {
+                throw new IOException("Broken pax header");
+            }
+            String record = new String(content, space + 1, offset + length - space - 2, StandardCharsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (0 < equals) {
+                pax.put(record.substring(0, equals), record.substring(equals + 1));
+            }
+            offset += length;
+        }
+        return pax;
+    }
+
+    private static byte[] readEntry(InputStream in, long size) throws IOException {
+        if (SMALL_FILE_SIZE < size) {
+            throw new IOException("Unexpected entry size: " + size);
+        }
+        byte[] content = in.readNBytes((int) size);
+        if (content.length < size) {
+            throw new EOFException();
+        }
+        skip(in, padding(size));
+        return content;
+    }
+
+    private static long padding(long size) {
+        return (512 - size % 512) % 512;
+    }
+
+    private static void skip(InputStream in, long bytes) throws IOException {
+        while (0 < bytes) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static void write(InputStream in, Path path) throws IOException {
+        // CREATE_NEW never follows a link planted at the path
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                byteBuffer.clear().limit(read);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer);
+                }
+            }
+        }
+    }
+
+    private static void setMode(Path path, int mode) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        if (view == null || (mode & 0777) == 0) {
+            // not a posix filesystem, or no permissions recorded in the archive
+            return;
+        }
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        PosixFilePermission[] values = PosixFilePermission.values();
+        // OWNER_READ is 0400, ... OTHERS_EXECUTE is 0001
+        for (int i = 0; i < values.length; i++) {
+            if ((mode & (0400 >> i)) != 0) {
+                permissions.add(values[i]);
+            }
+        }
+        view.setPermissions(permissions);
+    }
+
+    private static void delete(Path path) throws IOException {
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                // directories made read only by the archive
+                dir.toFile().setWritable(true);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * Entries of an archive being extracted. Files are written on the pool as they come. Links are created once all
+     * files are in place so that no file is written through a link, and directory permissions are applied last so
+     * that read only directories can be filled.
+     */
+    private final class Extraction {
+        private final Path root;
+        private final ExecutorService executor;
+        private final List<Future<Void>> futures = new ArrayList<>();
+        private final Map<Path, Integer> directories = new LinkedHashMap<>();
+        private final Map<Path, Path> hardLinks = new LinkedHashMap<>();
+        private final Map<Path, String> symbolicLinks = new LinkedHashMap<>();
+
+        Extraction(Path root) {
+            this.root = root;
+            AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parallelism, r -> {
+                Thread thread = new Thread(r);
+                thread.setName("Shogun Extractor " + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * @param name entry name
+         * @return path of the entry in the staging directory
+         * @throws IOException if the entry points outside of the staging directory
+         */
+        Path resolve(String name) throws IOException {
+            Path path = root.resolve(name.replace('\\', '/')).normalize();
+            if (!path.startsWith(root) || Paths.get(name).isAbsolute()) {
+                throw new IOException("Entry outside of the archive: " + name);
+            }
+            return path;
+        }
+
+        void parentOf(Path path) throws IOException {
+            if (!path.getParent().equals(root)) {
+                Files.createDirectories(path.getParent());
+            }
+        }
+
+        void directory(Path path, int mode) throws IOException {
+            if (path.equals(root)) {
+                return;
+            }
+            Files.createDirectories(path);
+            directories.put(path, mode);
+        }
+
+        void file(Path path, int mode, Task write) throws IOException {
+            parentOf(path);
+            futures.add(executor.submit(() -> {
+                write.run();
+                setMode(path, mode);
+                return null;
+            }));
+        }
+
+        void mode(Path path, int mode) throws IOException {
+            setMode(path, mode);
+        }
+
+        void hardLink(Path path, Path target) throws IOException {
+            parentOf(path);
+            hardLinks.put(path, target);
+        }
+
+        void symbolicLink(Path path, String target) throws IOException {
+            parentOf(path);
+            symbolicLinks.put(path, target);
+        }
+
+        /**
+         * Waits for the files being written.
+         *
+         * @throws IOException if failed to write any of the files
+         */
+        void await() throws IOException {
+            IOException failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            futures.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        /**
+         * Stops the pool, and waits for the files being written so that the staging directory can be deleted.
+         */
+        void close() {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warn("Extraction into {} didn't stop in time", root);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void finish() throws IOException {
+            await();
+            for (Map.Entry<Path, Path> link : hardLinks.entrySet()) {
+                Files.createLink(link.getKey(), link.getValue());
+            }
+            for (Map.Entry<Path, String> link : symbolicLinks.entrySet()) {
+                Files.createSymbolicLink(link.getKey(), Paths.get(link.getValue()));
+            }
+            // deepest first, so that a read only directory doesn't block its children
+            List<Path> paths = new ArrayList<>(directories.keySet());
+            paths.sort((a, b) -> b.getNameCount() - a.getNameCount());
+            for (Path path : paths) {
+                setMode(path, directories.get(path));
+            }
+        }
+    }
+
+    /**
+     * Reads up to the size of a tar entry, leaving the rest of the stream untouched.
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long size) {
+            this.in = in;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read();
+            if (read < 0) {
+                throw new EOFException();
+            }
+            remaining--;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read < 0) {
+                throw new EOFException();
+            }
+            remaining -= read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package shogun.sdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shares the archive store over HTTP so that machines on the same network download each archive only once.<br>
+ * Archives are served at /archives/[candidate]/[identifier] from $SDKMAN_DIR/archives/[candidate]-[identifier].zip.
+ * <ul>
+ * <li>-Dshogun.mirror.port=[port] serves the local archive store on the loopback interface.
+ * -Dshogun.mirror.bind=[address] specifies the interface to serve other machines on</li>
+ * <li>-Dshogun.mirror.peer=http://[host]:[port] fetches archives from the peer before falling back to sdk install</li>
+ * </ul>
+ * Archives fetched from the peer are accepted only if they match the checksum published by SDKMAN!. The peer itself is
+ * not trusted.
+ */
+public final class ArchiveMirror implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private static final Pattern validName = Pattern.compile("^[a-zA-Z0-9._+\\-]+$");
+    private static final Pattern archivePath = Pattern.compile("^/archives/([^/]+)/([^/]+)$");
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private ArchiveMirror(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts serving the archive store if -Dshogun.mirror.port is specified.
+     *
+     * @return running mirror, or null if not configured or failed to start
+     */
+    public static ArchiveMirror startIfConfigured() {
+        Integer port = Integer.getInteger("shogun.mirror.port");
+        if (port == null) {
+            return null;
+        }
+        String bind = System.getProperty("shogun.mirror.bind");
+        InetSocketAddress address = bind == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                : new InetSocketAddress(bind, port);
+        try {
+            return start(SDK.getArchivesPath(), address);
+        } catch (IOException e) {
+            logger.warn("Failed to start archive mirror on {}", address, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param archives archive store to be served
+     * @param address  address to listen
+     * @return running mirror
+     * @throws IOException if failed to listen
+     */
+    static ArchiveMirror start(Path archives, InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("Shogun Archive Mirror");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/archives/", exchange -> {
+            try {
+                serve(archives, exchange);
+            } catch (IOException e) {
+                logger.debug("Failed to serve {}", exchange.getRequestURI(), e);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        logger.info("Serving {} on {}", archives, server.getAddress());
+        return new ArchiveMirror(server, executor);
+    }
+
+    private static void serve(Path archives, HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            exchange.sendResponseHeaders(405, -1);
+            return;
+        }
+        Matcher matcher = archivePath.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.matches() || !validName.matcher(matcher.group(1)).matches() || !validName.matcher(matcher.group(2)).matches()) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        Path archive = archives.resolve(archiveName(matcher.group(1), matcher.group(2)));
+        if (!Files.isRegularFile(archive)) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        logger.debug("Serving {} to {}", archive, exchange.getRemoteAddress());
+        exchange.getResponseHeaders().set("Content-Type", "application/zip");
+        String checksum = ArchiveChecksum.read(archive);
+        if (checksum != null) {
+            exchange.getResponseHeaders().set(ArchiveChecksum.HEADER, checksum);
+        }
+        if (method.equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(Files.size(archive)));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, Files.size(archive));
+        try (OutputStream out = exchange.getResponseBody()) {
+            Files.copy(archive, out);
+        }
+    }
+
+    /**
+     * @return address the mirror is listening on
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    static String archiveName(String candidate, String identifier) {
+        return candidate + "-" + identifier + ".zip";
+    }
+
+    /**
+     * Fetches the archive from the peer mirror specified with -Dshogun.mirror.peer unless it's already in the store.
+     *
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @param expected   checksum published by SDKMAN!, or null to ask the broker for it
+     * @return true if the archive is in the store
+     */
+    static boolean fetchFromPeer(String candidate, String identifier, @Nullable String expected) {
+        String peer = System.getProperty("shogun.mirror.peer");
+        if (peer == null) {
+            return false;
+        }
+        if (expected != null) {
+            return fetch(URI.create(peer), candidate, identifier, SDK.getArchivesPath(), expected);
+        }
+        String published = SegmentedDownloader.published(candidate, identifier);
+        if (published == null) {
+            logger.info("Checksum of {} {} is not published. Not fetching from the peer", candidate, identifier);
+            return false;
+        }
+        if (!fetch(URI.create(peer), candidate, identifier, SDK.getArchivesPath(), published)) {
+            return false;
+        }
+        // recorded as SDKMAN! does, so that the archive is verified against it when installed
+        try {
+            SegmentedDownloader.writeHeaders(ArchiveChecksum.headersFile(candidate, identifier),
+                    List.of(ArchiveChecksum.HEADER + ": " + published));
+        } catch (IOException e) {
+            logger.warn("Failed to record the checksum of {} {}", candidate, identifier, e);
+        }
+        return true;
+    }
+
+    /**
+     * @param peer       base URI of the peer mirror
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @param archives   archive store
+     * @param expected   checksum published by SDKMAN!. the archive is not fetched if null
+     * @return true if the archive is in the store
+     */
+    static boolean fetch(URI peer, String candidate, String identifier, Path archives, @Nullable String expected) {
+        if (expected == null) {
+            return false;
+        }
+        if (!validName.matcher(candidate).matches() || !validName.matcher(identifier).matches()) {
+            return false;
+        }
+        Path archive = archives.resolve(archiveName(candidate, identifier));
+        if (Files.isRegularFile(archive)) {
+            return true;
+        }
+        Path partial = null;
+        try {
+            URL url = peer.resolve("/archives/" + candidate + "/" + identifier).toURL();
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            try {
+                if (connection.getResponseCode() != 200) {
+                    logger.debug("{} returned {}", url, connection.getResponseCode());
+                    return false;
+                }
+                long expectedLength = connection.getContentLengthLong();
+                Files.createDirectories(archives);
+                partial = Files.createTempFile(archives, archiveName(candidate, identifier), ".mirror");
+                long length;
+                // hash while downloading. no second pass over the archive
+                MessageDigest digest = ArchiveChecksum.newDigest();
+                try (InputStream in = new DigestInputStream(connection.getInputStream(), digest)) {
+                    length = Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (0 <= expectedLength && length != expectedLength) {
+                    throw new IOException(String.format("Expected %d bytes but got %d bytes from %s", expectedLength, length, url));
+                }
+                String checksum = ArchiveChecksum.toHex(digest.digest());
+                if (!expected.equalsIgnoreCase(checksum)) {
+                    throw new IOException(String.format("Checksum mismatch: expected %s but was %s from %s", expected, checksum, url));
+                }
+                Files.move(partial, archive, StandardCopyOption.ATOMIC_MOVE);
+                ArchiveChecksum.write(archive, checksum);
+                logger.info("Fetched {} from {}", archive, url);
+                return true;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            logger.info("Failed to fetch {} {} from {}. Falling back to sdk install", candidate, identifier, peer, e);
+            return false;
+        } finally {
+            if (partial != null) {
+                try {
+                    Files.deleteIfExists(partial);
+                } catch (IOException e) {
+                    logger.debug("Failed to delete {}", partial, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Generates the default CDS archive (lib/server/classes.jsa) of a JDK with `java -Xshare:dump` so that every Java
+ * tool launched with the JDK starts faster.
+ */
+public final class CDSArchive {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private static final int SAMPLES = 5;
+    // JDK 9+, JDK 9+ on Windows, JDK 8, JDK 8 on Linux
+    private static final List<String> ARCHIVE_LOCATIONS = List.of("lib/server/classes.jsa", "bin/server/classes.jsa",
+            "jre/lib/server/classes.jsa", "jre/lib/amd64/server/classes.jsa");
+
+    private CDSArchive() {
+    }
+
+    /**
+     * @param version JDK
+     * @return true if the JDK already has the default CDS archive
+     */
+    public static boolean exists(Version version) {
+        return find(Path.of(version.getPath())) != null;
+    }
+
+    @Nullable
+    static Path find(Path home) {
+        for (String location : ARCHIVE_LOCATIONS) {
+            Path archive = home.resolve(location);
+            if (Files.exists(archive)) {
+                return archive;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Dumps the default CDS archive and measures `java -version` before and after.
+     *
+     * @param version JDK
+     * @return result
+     */
+    public static Result generate(Version version) {
+        Path home = Path.of(version.getPath());
+        String java = JDKBenchmark.executable(home, "java").toString();
+        if (find(home) != null) {
+            return new Result(version.getIdentifier(), Result.Status.ALREADY_EXISTS, -1, -1);
+        }
+        // the dump writes into the JDK directory. don't let uninstall run in the middle
+        try (SDKLock ignored = SDKLock.candidate(version.getCandidate())) {
+            long before = JDKBenchmark.median(SAMPLES, java, "-Xshare:auto", "-version");
+            if (before < 0) {
+                return new Result(version.getIdentifier(), Result.Status.FAILED, -1, -1);
+            }
+            logger.info("Generating CDS archive for {}", version.getIdentifier());
+            if (JDKBenchmark.launch(java, "-Xshare:dump") < 0 || find(home) == null) {
+                // e.g. the JDK is not writable
+                logger.warn("Failed to generate CDS archive for {}", home);
+                return new Result(version.getIdentifier(), Result.Status.FAILED, before, -1);
+            }
+            long after = JDKBenchmark.median(SAMPLES, java, "-Xshare:auto", "-version");
+            Result result = new Result(version.getIdentifier(), Result.Status.GENERATED, before, after);
+            logger.info("Generated CDS archive: {}", result);
+            return result;
+        } catch (IOException e) {
+            logger.warn("Failed to generate CDS archive for {}", home, e);
+            return new Result(version.getIdentifier(), Result.Status.FAILED, -1, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(version.getIdentifier(), Result.Status.FAILED, -1, -1);
+        }
+    }
+
+    public static final class Result {
+        public enum Status {
+            GENERATED, ALREADY_EXISTS, FAILED
+        }
+
+        private final String identifier;
+        private final Status status;
+        private final long beforeMillis;
+        private final long afterMillis;
+
+        Result(String identifier, Status status, long beforeMillis, long afterMillis) {
+            this.identifier = identifier;
+            this.status = status;
+            this.beforeMillis = beforeMillis;
+            this.afterMillis = afterMillis;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return median of `java -version` without the archive in milliseconds, or -1 if not measured
+         */
+        public long getBeforeMillis() {
+            return beforeMillis;
+        }
+
+        /**
+         * @return median of `java -version` with the archive in milliseconds, or -1 if not measured
+         */
+        public long getAfterMillis() {
+            return afterMillis;
+        }
+
+        @Override
+        public String toString() {
+            switch (status) {
+                case GENERATED:
+                    return String.format("%s: %d ms -> %d ms", identifier, beforeMillis, afterMillis);
+                case ALREADY_EXISTS:
+                    return identifier + ": CDS archive already exists";
+                default:
+                    return identifier + ": failed";
+            }
+        }
+    }
+}
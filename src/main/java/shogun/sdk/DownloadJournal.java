@@ -0,0 +1,136 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte ranges of a partial download already written to disk, kept in [archive].part.journal beside the part file so
+ * that an interrupted download continues where it stopped.<br>
+ * The first line holds the length of the archive and the validator (ETag or Last-Modified) it was downloaded with.
+ * Each following line is a completed range "[first]-[last]", merged and sorted.
+ */
+final class DownloadJournal {
+    private final static Logger logger = LoggerFactory.getLogger();
+
+    private final Path path;
+    private final long length;
+    private final String validator;
+    // sorted, non overlapping, non adjacent. {first, last} inclusive
+    private final List<long[]> completed = new ArrayList<>();
+
+    DownloadJournal(Path path, long length, String validator) {
+        this.path = path;
+        this.length = length;
+        this.validator = validator;
+    }
+
+    static Path of(Path part) {
+        return part.resolveSibling(part.getFileName() + ".journal");
+    }
+
+    /**
+     * @param path journal file
+     * @return journal, or null if not found or unreadable
+     */
+    @Nullable
+    static DownloadJournal read(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                return null;
+            }
+            String header = lines.get(0);
+            int space = header.indexOf(' ');
+            DownloadJournal journal = new DownloadJournal(path, Long.parseLong(space < 0 ? header : header.substring(0, space)),
+                    space < 0 ? "" : header.substring(space + 1));
+            for (String line : lines.subList(1, lines.size())) {
+                String[] range = line.split("-");
+                if (range.length == 2) {
+                    journal.complete(Long.parseLong(range[0]), Long.parseLong(range[1]));
+                }
+            }
+            return journal;
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("Failed to read {}", path, e);
+            return null;
+        }
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    String getValidator() {
+        return validator;
+    }
+
+    /**
+     * @param first first byte position, inclusive
+     * @param last  last byte position, inclusive
+     */
+    synchronized void complete(long first, long last) {
+        if (last < first || first < 0 || length <= last) {
+            return;
+        }
+        int i = 0;
+        while (i < completed.size() && completed.get(i)[1] + 1 < first) {
+            i++;
+        }
+        // merge with the ranges overlapping or adjacent to [first, last]
+        while (i < completed.size() && completed.get(i)[0] <= last + 1) {
+            long[] merged = completed.remove(i);
+            first = Math.min(first, merged[0]);
+            last = Math.max(last, merged[1]);
+        }
+        completed.add(i, new long[]{first, last});
+    }
+
+    /**
+     * @return ranges not completed yet, in order. {first, last} inclusive
+     */
+    @NotNull
+    synchronized List<long[]> missing() {
+        List<long[]> missing = new ArrayList<>();
+        long next = 0;
+        for (long[] range : completed) {
+            if (next < range[0]) {
+                missing.add(new long[]{next, range[0] - 1});
+            }
+            next = range[1] + 1;
+        }
+        if (next < length) {
+            missing.add(new long[]{next, length - 1});
+        }
+        return missing;
+    }
+
+    synchronized long getCompletedBytes() {
+        return completed.stream().mapToLong(e -> e[1] - e[0] + 1).sum();
+    }
+
+    /**
+     * Writes the journal. Ranges must be forced to disk before being written to the journal.
+     *
+     * @throws IOException if failed to write
+     */
+    synchronized void write() throws IOException {
+        StringBuilder content = new StringBuilder().append(length).append(' ').append(validator).append('\n');
+        completed.forEach(e -> content.append(e[0]).append('-').append(e[1]).append('\n'));
+        Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        Files.writeString(tempFile, content, StandardCharsets.UTF_8);
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,263 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures startup time of JDKs side by side.<br>
+ * For each JDK, `java -version` and a hello world compiled with the JDK's own javac are launched repeatedly, and the
+ * hello world is run with CDS enabled (-Xshare:auto) and disabled (-Xshare:off). Median of the samples is reported.
+ * JDKs are benchmarked in parallel. Results are kept in jdk-benchmark.txt in the Shogun directory.
+ */
+public final class JDKBenchmark {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private static final String HEADER = "# Shogun JDK benchmark 1";
+    private static final long TIMEOUT_SECONDS = 60;
+    private final Path file;
+
+    public JDKBenchmark() {
+        this(Platform.getShogunDir().resolve("jdk-benchmark.txt"));
+    }
+
+    JDKBenchmark(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param versions JDKs to be benchmarked
+     * @param samples  number of samples per measurement
+     * @param progress called with each result as it finishes
+     * @return results in the same order as versions. JDKs that couldn't be launched are excluded
+     */
+    public List<Result> run(List<Version> versions, int samples, Consumer<Result> progress) {
+        Path workDir;
+        try {
+            workDir = Files.createTempDirectory("shogun-benchmark");
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create working directory", e);
+        }
+        // use half of the cores. timings get noisy when the machine is saturated
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Version version : versions) {
+                futures.add(executor.submit(() -> {
+                    Result result = benchmark(version, samples, workDir.resolve(version.getIdentifier()));
+                    if (result != null) {
+                        progress.accept(result);
+                    }
+                    return result;
+                }));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    Result result = future.get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                } catch (ExecutionException e) {
+                    logger.warn("Benchmark failed", e.getCause());
+                }
+            }
+            save(results);
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } finally {
+            executor.shutdownNow();
+            try {
+                Tombstone.deleteRecursively(workDir);
+            } catch (IOException e) {
+                logger.debug("Failed to delete {}", workDir, e);
+            }
+        }
+    }
+
+    @Nullable
+    private static Result benchmark(Version version, int samples, Path workDir) throws IOException, InterruptedException {
+        Path home = Path.of(version.getPath());
+        Path java = executable(home, "java");
+        if (!Files.isExecutable(java)) {
+            logger.debug("java not found in {}", home);
+            return null;
+        }
+        long javaVersion = median(samples, java.toString(), "-version");
+        if (javaVersion < 0) {
+            return null;
+        }
+        long hello = -1;
+        long helloWithoutCDS = -1;
+        Path javac = executable(home, "javac");
+        if (Files.isExecutable(javac)) {
+            Files.createDirectories(workDir);
+            Path source = workDir.resolve("Hello.java");
+            Files.writeString(source, "public class Hello { public static void main(String[] args) { System.out.println(\"Hello\"); } }");
+            if (launch(javac.toString(), "-d", workDir.toString(), source.toString()) >= 0) {
+                hello = median(samples, java.toString(), "-Xshare:auto", "-cp", workDir.toString(), "Hello");
+                helloWithoutCDS = median(samples, java.toString(), "-Xshare:off", "-cp", workDir.toString(), "Hello");
+            }
+        }
+        Result result = new Result(version.getIdentifier(), javaVersion, hello, helloWithoutCDS);
+        logger.info("Benchmark: {}", result);
+        return result;
+    }
+
+    static Path executable(Path home, String name) {
+        return home.resolve("bin").resolve(Platform.isWindows ? name + ".exe" : name);
+    }
+
+    /**
+     * @return median of elapsed milliseconds, or -1 if the command failed
+     */
+    static long median(int samples, String... command) throws IOException, InterruptedException {
+        // warm up the file system cache
+        if (launch(command) < 0) {
+            return -1;
+        }
+        long[] elapsed = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            elapsed[i] = launch(command);
+            if (elapsed[i] < 0) {
+                return -1;
+            }
+        }
+        Arrays.sort(elapsed);
+        return elapsed[samples / 2];
+    }
+
+    /**
+     * @return elapsed milliseconds, or -1 if the command failed
+     */
+    static long launch(String... command) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            return -1;
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return process.exitValue() == 0 ? elapsed : -1;
+    }
+
+    /**
+     * @return results of the last benchmark keyed by identifier
+     */
+    @NotNull
+    public Map<String, Result> load() {
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return results;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return results;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] split = line.split("\t");
+                Result result = new Result(split[0], Long.parseLong(split[1]), Long.parseLong(split[2]), Long.parseLong(split[3]));
+                results.put(result.getIdentifier(), result);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load {}", file, e);
+            return new LinkedHashMap<>();
+        }
+        return results;
+    }
+
+    private void save(List<Result> results) {
+        // keep results of JDKs not benchmarked this time
+        Map<String, Result> merged = load();
+        results.forEach(e -> merged.put(e.getIdentifier(), e));
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), "jdk-benchmark", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Result result : merged.values()) {
+                    writer.write(String.join("\t", result.getIdentifier(), String.valueOf(result.getJavaVersionMillis()),
+                            String.valueOf(result.getHelloMillis()), String.valueOf(result.getHelloWithoutCDSMillis())));
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to save {}", file, e);
+        }
+    }
+
+    public static final class Result {
+        private final String identifier;
+        private final long javaVersionMillis;
+        private final long helloMillis;
+        private final long helloWithoutCDSMillis;
+
+        Result(String identifier, long javaVersionMillis, long helloMillis, long helloWithoutCDSMillis) {
+            this.identifier = identifier;
+            this.javaVersionMillis = javaVersionMillis;
+            this.helloMillis = helloMillis;
+            this.helloWithoutCDSMillis = helloWithoutCDSMillis;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        /**
+         * @return median of `java -version` in milliseconds
+         */
+        public long getJavaVersionMillis() {
+            return javaVersionMillis;
+        }
+
+        /**
+         * @return median of hello world with CDS in milliseconds, or -1 if javac is not available
+         */
+        public long getHelloMillis() {
+            return helloMillis;
+        }
+
+        /**
+         * @return median of hello world without CDS in milliseconds, or -1 if javac is not available
+         */
+        public long getHelloWithoutCDSMillis() {
+            return helloWithoutCDSMillis;
+        }
+
+        @Override
+        public String toString() {
+            String string = identifier + ": -version " + javaVersionMillis + " ms";
+            if (0 <= helloMillis) {
+                string += ", hello " + helloMillis + " ms (CDS off " + helloWithoutCDSMillis + " ms)";
+            }
+            return string;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package shogun.sdk;
 
 import org.jetbrains.annotations.NotNull;
+import shogun.metrics.JDKProbeEvent;
+import shogun.metrics.Metrics;
 
 import java.io.File;
 import java.nio.file.Files;
@@ -11,6 +13,12 @@ import java.util.regex.Pattern;
 
 public class JDKScanner {
     public static List<NotRegisteredVersion> scan() {
+        try (Metrics.Sample ignored = Metrics.start("shogun_jdk_scan", "all")) {
+            return scanJDKs();
+        }
+    }
+
+    private static List<NotRegisteredVersion> scanJDKs() {
         List<File> result = new ArrayList<>();
         Platform.isMac(() -> {
             result.addAll(searchJDKs(new File("/Library/Java/JavaVirtualMachines")));
@@ -32,8 +40,16 @@ public class JDKScanner {
                 ).forEach(file -> {
             File javaCommand = new File(file.getAbsoluteFile() + File.separator + "bin" + File.separator + "java");
             if (javaCommand.isFile() && javaCommand.exists()) {
+                JDKProbeEvent event = new JDKProbeEvent();
+                event.begin();
                 String versionString = SDKLauncher.exec(javaCommand.getAbsolutePath() + " -version");
-                versionList.add(stringToVersion(versionString, file));
+                NotRegisteredVersion version = stringToVersion(versionString, file);
+                versionList.add(version);
+                if (event.shouldCommit()) {
+                    event.path = file.getAbsolutePath();
+                    event.identifier = version.getIdentifier();
+                    event.commit();
+                }
             }
         });
         return versionList;
@@ -3,6 +3,9 @@ package shogun.sdk;
 import org.slf4j.Logger;
 import shogun.logging.LoggerFactory;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public final class Platform {
     private final static Logger logger = LoggerFactory.getLogger();
 
@@ -35,6 +38,14 @@ public final class Platform {
         }
     }
 
+    /**
+     * @return directory to persist Shogun's state between launches
+     */
+    public static Path getShogunDir() {
+        String home = System.getProperty("user.home");
+        return platform == OS.MACOS ? Paths.get(home, "Library", "Application Support", "Shogun") : Paths.get(home, "Shogun");
+    }
+
     public static void isMac(Runnable runnable) {
         if (platform == OS.MACOS) {
             try {
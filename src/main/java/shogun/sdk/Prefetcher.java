@@ -0,0 +1,220 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Downloads the newest version in the line of each installed candidate's current version into the archive store while
+ * the machine is idle, so that installing it later is only an extraction.<br>
+ * The line is the major version, and the dist for Java. The machine is idle when no user operation is running and the
+ * system load average per processor is below the maximum. Downloads are throttled, stop as soon as the machine gets
+ * busy or prefetching is paused, and continue from the journal next time.
+ * <ul>
+ * <li>-Dshogun.prefetch=true enables prefetching</li>
+ * <li>-Dshogun.prefetch.budget=[MB] bounds the size of the archive store. default 2048</li>
+ * <li>-Dshogun.prefetch.rate=[KB/s] bounds the download rate. 0 disables throttling. default 2048</li>
+ * <li>-Dshogun.prefetch.maxLoad=[load average per processor] default 0.5</li>
+ * <li>-Dshogun.prefetch.interval=[minutes] default 30</li>
+ * </ul>
+ */
+public final class Prefetcher {
+    private final static Logger logger = LoggerFactory.getLogger();
+
+    private final SDK sdk;
+    private final BooleanSupplier busy;
+    private final long budgetBytes;
+    private final double maxLoad;
+    private final SegmentedDownloader.Throttle throttle;
+    private final ScheduledThreadPoolExecutor executor;
+    private volatile boolean paused;
+
+    Prefetcher(SDK sdk, BooleanSupplier busy, long budgetBytes, long bytesPerSecond, double maxLoad) {
+        this.sdk = sdk;
+        this.busy = busy;
+        this.budgetBytes = budgetBytes;
+        this.maxLoad = maxLoad;
+        this.throttle = bytesPerSecond <= 0 ? null : new SegmentedDownloader.Throttle(bytesPerSecond);
+        executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("Shogun Prefetcher");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * @param sdk  sdk
+     * @param busy true while user operations are running
+     * @return prefetcher if -Dshogun.prefetch=true is specified, or null. not started yet
+     */
+    @Nullable
+    public static Prefetcher createIfConfigured(SDK sdk, BooleanSupplier busy) {
+        if (!Boolean.getBoolean("shogun.prefetch")) {
+            return null;
+        }
+        return new Prefetcher(sdk, busy, Long.getLong("shogun.prefetch.budget", 2048) * 1024 * 1024,
+                Long.getLong("shogun.prefetch.rate", 2048) * 1024,
+                Double.parseDouble(System.getProperty("shogun.prefetch.maxLoad", "0.5")));
+    }
+
+    public void start() {
+        long interval = Math.max(1, Long.getLong("shogun.prefetch.interval", 30));
+        executor.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.MINUTES);
+        logger.info("Prefetching every {} minutes", interval);
+    }
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void stop() {
+        paused = true;
+        executor.shutdownNow();
+    }
+
+    private boolean isIdle() {
+        if (paused || busy.getAsBoolean()) {
+            return false;
+        }
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        double load = os.getSystemLoadAverage();
+        // negative if not available
+        return load < 0 || load / os.getAvailableProcessors() < maxLoad;
+    }
+
+    void run() {
+        try {
+            if (!sdk.isInstalled()) {
+                return;
+            }
+            Path candidates = Paths.get(SDK.getSDK_MAN_DIR(), "candidates");
+            for (String candidate : sdk.getInstalledCandidates()) {
+                if (!isIdle()) {
+                    logger.debug("Not idle. Postponing prefetch.");
+                    return;
+                }
+                String current = currentIdentifier(candidates.resolve(candidate));
+                if (current == null) {
+                    continue;
+                }
+                Optional<Version> newer = newerInLine(sdk.index(candidate), current);
+                if (newer.isPresent()) {
+                    prefetch(candidate, newer.get());
+                }
+            }
+        } catch (RuntimeException e) {
+            // keep the schedule
+            logger.warn("Failed to prefetch", e);
+        }
+    }
+
+    private void prefetch(String candidate, Version version) {
+        String identifier = version.getIdentifier();
+        Path archives = SDK.getArchivesPath();
+        String archiveName = ArchiveMirror.archiveName(candidate, identifier);
+        if (version.isInstalled() || Files.isRegularFile(archives.resolve(archiveName))) {
+            return;
+        }
+        long partSize = size(archives.resolve(archiveName + ".part"));
+        long remaining = budgetBytes - usage(archives) + partSize;
+        if (remaining <= 0) {
+            logger.debug("The archive store exceeds the budget of {} bytes. Skipping {} {}", budgetBytes, candidate, identifier);
+            return;
+        }
+        try (SDKLock ignored = SDKLock.archive(archiveName, 0)) {
+            logger.info("Prefetching {} {}", candidate, identifier);
+            SegmentedDownloader downloader = new SegmentedDownloader(Integer.getInteger("shogun.download.segments", 4),
+                    SegmentedDownloader.MIN_SEGMENT_SIZE, Integer.getInteger("shogun.download.retries", 5), 1000,
+                    throttle, () -> !isIdle(), remaining);
+            SegmentedDownloader.downloadToStore(candidate, identifier, downloader, null);
+        } catch (SDKBusyException e) {
+            logger.debug("{} is in use. Skipping prefetch", archiveName);
+        }
+    }
+
+    /**
+     * @param candidateDir candidates/[candidate]
+     * @return identifier of the current version, or null if current is not a symbolic link
+     */
+    @Nullable
+    static String currentIdentifier(Path candidateDir) {
+        Path current = candidateDir.resolve("current");
+        if (!Files.isSymbolicLink(current)) {
+            return null;
+        }
+        try {
+            return Files.readSymbolicLink(current).getFileName().toString();
+        } catch (IOException e) {
+            logger.debug("Failed to read {}", current, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param index   versions of the candidate
+     * @param current identifier of the current version
+     * @return the newest version of the same major, and the same dist for Java, if newer than current
+     */
+    static Optional<Version> newerInLine(VersionIndex index, String current) {
+        Optional<Version> currentVersion = index.sorted().stream()
+                .filter(e -> current.equals(e.getIdentifier())).findFirst();
+        if (currentVersion.isEmpty()) {
+            return Optional.empty();
+        }
+        Version version = currentVersion.get();
+        String major = VersionIndex.major(version.getVersion());
+        if (major.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Version> latest = version instanceof JavaVersion ?
+                index.latest(((JavaVersion) version).getDist(), major) : index.latest(major);
+        return latest.filter(e -> VersionIndex.sortKey(version.getVersion()).compareTo(VersionIndex.sortKey(e.getVersion())) < 0);
+    }
+
+    /**
+     * @param archives archive store
+     * @return total size of the files in the store, including partial downloads
+     */
+    static long usage(Path archives) {
+        if (!Files.isDirectory(archives)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(archives)) {
+            return files.mapToLong(Prefetcher::size).sum();
+        } catch (IOException e) {
+            logger.debug("Failed to list {}", archives, e);
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Installs the versions listed in a manifest without the task tray, and sets the defaults.<br>
+ * usage: Shogun provision &lt;manifest&gt; [&lt;report&gt;]<br>
+ * Each line of the manifest is "[candidate] [identifier]", optionally followed by "default". Lines starting with # are
+ * ignored. Versions already installed are skipped. Candidates are provisioned in parallel on
+ * -Dshogun.provision.parallelism threads (default 4), and versions of the same candidate are installed in the order
+ * listed. The report is written in JSON to the report file, or to the standard output.
+ */
+public final class Provisioner {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private final static Pattern validName = Pattern.compile("^[a-zA-Z0-9._+\\-]+$");
+
+    private final int parallelism;
+    private final Predicate<Version> installed;
+    private final Consumer<Version> installer;
+    private final Consumer<Version> defaultSetter;
+
+    public Provisioner(SDK sdk, int parallelism) {
+        this(parallelism, e -> e.isInstalled() || e.isLocallyInstalled(), sdk::install,
+                e -> sdk.makeDefault(e.getCandidate(), e));
+    }
+
+    Provisioner(int parallelism, Predicate<Version> installed, Consumer<Version> installer, Consumer<Version> defaultSetter) {
+        this.parallelism = Math.max(1, parallelism);
+        this.installed = installed;
+        this.installer = installer;
+        this.defaultSetter = defaultSetter;
+    }
+
+    /**
+     * @param args manifest, and optionally the report file
+     * @return exit code. 0 if everything is provisioned, 1 if any version failed, 2 if the manifest is invalid
+     */
+    public static int run(String... args) {
+        if (args.length < 1 || 2 < args.length) {
+            System.err.println("usage: provision <manifest> [<report>]");
+            return 2;
+        }
+        List<Entry> entries;
+        try {
+            entries = parse(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to read manifest " + args[0] + ": " + e.getMessage());
+            return 2;
+        }
+        SDK sdk = new SDK();
+        if (!sdk.isInstalled()) {
+            System.err.println("SDKMAN! is not installed in " + SDK.getSDK_MAN_DIR());
+            return 2;
+        }
+        List<Result> results = new Provisioner(sdk, Integer.getInteger("shogun.provision.parallelism", 4)).provision(entries);
+        String report = toJson(results);
+        if (args.length == 2) {
+            try {
+                Path reportFile = Paths.get(args[1]).toAbsolutePath();
+                Files.createDirectories(reportFile.getParent());
+                Path tempFile = Files.createTempFile(reportFile.getParent(), "provision", ".tmp");
+                Files.writeString(tempFile, report);
+                Files.move(tempFile, reportFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("Failed to write report " + args[1] + ": " + e.getMessage());
+                System.out.print(report);
+            }
+        } else {
+            System.out.print(report);
+            System.out.flush();
+        }
+        return results.stream().allMatch(Result::isSucceeded) ? 0 : 1;
+    }
+
+    /**
+     * @param lines lines of the manifest
+     * @return entries in the order listed
+     * @throws IllegalArgumentException if the manifest is invalid
+     */
+    @NotNull
+    static List<Entry> parse(List<String> lines) {
+        List<Entry> entries = new ArrayList<>();
+        Map<String, Entry> defaults = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] split = line.split("\\s+");
+            boolean makeDefault = split.length == 3 && split[2].equals("default");
+            if ((split.length != 2 && !makeDefault) || !validName.matcher(split[0]).matches()
+                    || !validName.matcher(split[1]).matches() || split[1].equals("current")) {
+                throw new IllegalArgumentException(String.format("line %d: expected \"<candidate> <identifier> [default]\" but was \"%s\"", i + 1, line));
+            }
+            Entry entry = new Entry(split[0], split[1], makeDefault);
+            if (entries.stream().anyMatch(e -> e.candidate.equals(entry.candidate) && e.identifier.equals(entry.identifier))) {
+                throw new IllegalArgumentException(String.format("line %d: %s %s is listed twice", i + 1, entry.candidate, entry.identifier));
+            }
+            if (makeDefault && defaults.put(entry.candidate, entry) != null) {
+                throw new IllegalArgumentException(String.format("line %d: more than one default for %s", i + 1, entry.candidate));
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * @param entries entries to be provisioned
+     * @return results in the order of the entries
+     */
+    @NotNull
+    public List<Result> provision(List<Entry> entries) {
+        Map<String, List<Entry>> byCandidate = new LinkedHashMap<>();
+        entries.forEach(e -> byCandidate.computeIfAbsent(e.candidate, e2 -> new ArrayList<>()).add(e));
+        logger.info("Provisioning {} version(s) of {} candidate(s)", entries.size(), byCandidate.size());
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, byCandidate.size())), r -> {
+            Thread thread = new Thread(r);
+            thread.setName("Shogun Provisioner " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<Entry, Result> results = new LinkedHashMap<>();
+        try {
+            List<Future<List<Result>>> futures = new ArrayList<>();
+            for (List<Entry> candidateEntries : byCandidate.values()) {
+                futures.add(executorService.submit(() -> provisionCandidate(candidateEntries)));
+            }
+            for (Future<List<Result>> future : futures) {
+                try {
+                    future.get().forEach(e -> results.put(e.entry, e));
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        List<Result> ordered = new ArrayList<>();
+        entries.forEach(e -> ordered.add(results.get(e)));
+        return ordered;
+    }
+
+    private List<Result> provisionCandidate(List<Entry> entries) {
+        List<Result> results = new ArrayList<>();
+        for (Entry entry : entries) {
+            Version version = entry.toVersion();
+            long start = System.currentTimeMillis();
+            if (installed.test(version)) {
+                logger.info("{} {} is already installed", entry.candidate, entry.identifier);
+                results.add(new Result(entry, Result.Status.ALREADY_INSTALLED, null, 0));
+                continue;
+            }
+            try {
+                logger.info("Installing {} {}", entry.candidate, entry.identifier);
+                installer.accept(version);
+                if (installed.test(version)) {
+                    results.add(new Result(entry, Result.Status.INSTALLED, null, System.currentTimeMillis() - start));
+                } else {
+                    results.add(new Result(entry, Result.Status.FAILED, "not installed by sdk install", System.currentTimeMillis() - start));
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to install {} {}", entry.candidate, entry.identifier, e);
+                results.add(new Result(entry, Result.Status.FAILED, String.valueOf(e.getMessage()), System.currentTimeMillis() - start));
+            }
+        }
+        // defaults are set once all versions of the candidate are in place
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            if (result.entry.makeDefault && result.status != Result.Status.FAILED) {
+                try {
+                    defaultSetter.accept(result.entry.toVersion());
+                    results.set(i, result.withDefault(true, null));
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to set {} {} as default", result.entry.candidate, result.entry.identifier, e);
+                    results.set(i, result.withDefault(false, "failed to set as default: " + e.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param results results
+     * @return results in JSON
+     */
+    @NotNull
+    static String toJson(List<Result> results) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"succeeded\": ").append(results.stream().allMatch(Result::isSucceeded)).append(",\n");
+        json.append("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"candidate\": ").append(quote(result.entry.candidate))
+                    .append(", \"identifier\": ").append(quote(result.entry.identifier))
+                    .append(", \"status\": ").append(quote(result.status.name()))
+                    .append(", \"default\": ").append(result.defaultSet)
+                    .append(", \"millis\": ").append(result.millis)
+                    .append(", \"message\": ").append(result.message == null ? "null" : quote(result.message))
+                    .append('}');
+        }
+        json.append(results.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return json.toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    public static final class Entry {
+        private final String candidate;
+        private final String identifier;
+        private final boolean makeDefault;
+
+        Entry(String candidate, String identifier, boolean makeDefault) {
+            this.candidate = candidate;
+            this.identifier = identifier;
+            this.makeDefault = makeDefault;
+        }
+
+        public String getCandidate() {
+            return candidate;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public boolean isMakeDefault() {
+            return makeDefault;
+        }
+
+        Version toVersion() {
+            return new Version(candidate, false, identifier, "");
+        }
+
+        @Override
+        public String toString() {
+            return candidate + " " + identifier + (makeDefault ? " default" : "");
+        }
+    }
+
+    public static final class Result {
+        public enum Status {
+            ALREADY_INSTALLED, INSTALLED, FAILED
+        }
+
+        private final Entry entry;
+        private final Status status;
+        private final boolean defaultSet;
+        private final String message;
+        private final long millis;
+
+        Result(Entry entry, Status status, String message, long millis) {
+            this(entry, status, false, message, millis);
+        }
+
+        private Result(Entry entry, Status status, boolean defaultSet, String message, long millis) {
+            this.entry = entry;
+            this.status = status;
+            this.defaultSet = defaultSet;
+            this.message = message;
+            this.millis = millis;
+        }
+
+        Result withDefault(boolean defaultSet, String message) {
+            return new Result(entry, status, defaultSet, message, millis);
+        }
+
+        public Entry getEntry() {
+            return entry;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isDefaultSet() {
+            return defaultSet;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return true if the version is installed, and set as default if requested
+         */
+        public boolean isSucceeded() {
+            return status != Status.FAILED && (!entry.makeDefault || defaultSet);
+        }
+
+        @Override
+        public String toString() {
+            return entry + ": " + status + (message == null ? "" : " (" + message + ")");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package shogun.sdk;
+
+/**
+ * Result of registering a JDK not managed by SDKMAN!
+ */
+public final class RegistrationResult {
+    public enum Status {
+        REGISTERED, ALREADY_REGISTERED, INVALID_IDENTIFIER, INVALID_PATH, FAILED
+    }
+
+    private final String identifier;
+    private final String path;
+    private final Status status;
+    private final String message;
+
+    RegistrationResult(String identifier, String path, Status status, String message) {
+        this.identifier = identifier;
+        this.path = path;
+        this.status = status;
+        this.message = message;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isRegistered() {
+        return status == Status.REGISTERED;
+    }
+
+    @Override
+    public String toString() {
+        return identifier + " (" + path + "): " + message;
+    }
+}
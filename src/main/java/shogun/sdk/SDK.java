@@ -1,18 +1,30 @@
 package shogun.sdk;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import shogun.logging.LoggerFactory;
+import shogun.metrics.Metrics;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -46,16 +58,36 @@ public class SDK {
         if (!isUpdateAvailable()) {
             throw new IllegalStateException("SDKMAN! is up to date.");
         }
-        return runSDK("update");
+        Instant startedAt = Instant.now();
+        String response = runSDK("update");
+        checkStatus(response, startedAt);
+        return response;
     }
 
     public String getVersion() {
-        return parseSDKVersion(runSDK("version"));
+        return version().getValue();
+    }
+
+    /**
+     * @return SDKMAN! version with the status observed by this call
+     */
+    public SDKResult<String> version() {
+        Instant startedAt = Instant.now();
+        String response = runSDK("version");
+        return new SDKResult<>(parseSDKVersion(response), response, checkStatus(response, startedAt));
     }
 
     @NotNull
     private File getArchiveDir() {
-        return new File(SDK.getSDK_MAN_DIR() + File.separator + "archives");
+        return getArchivesPath().toFile();
+    }
+
+    /**
+     * @return $SDKMAN_DIR/archives
+     */
+    @NotNull
+    static Path getArchivesPath() {
+        return Paths.get(getSDK_MAN_DIR(), "archives");
     }
 
     boolean isArchiveExists() {
@@ -77,8 +109,20 @@ public class SDK {
             //noinspection ConstantConditions
             for (File file : archiveDir.listFiles()) {
                 if (file.isFile()) {
-                    //noinspection ResultOfMethodCallIgnored
-                    file.delete();
+                    String archiveName = file.getName();
+                    for (String suffix : List.of(".sha256", ".part.journal", ".part")) {
+                        if (archiveName.endsWith(suffix)) {
+                            archiveName = archiveName.substring(0, archiveName.length() - suffix.length());
+                            break;
+                        }
+                    }
+                    // archives being installed are left as they are
+                    try (SDKLock ignored = SDKLock.archive(archiveName, 0)) {
+                        //noinspection ResultOfMethodCallIgnored
+                        file.delete();
+                    } catch (SDKBusyException e) {
+                        logger.debug("Skipping {} in use", file);
+                    }
                 }
             }
         }
@@ -101,40 +145,99 @@ public class SDK {
 
 
     String parseSDKVersion(String versionString) {
-        checkStatus(versionString);
         String[] split = versionString.split("\n");
         return split[split.length - 1];
     }
 
     public List<Version> list(String candidate) {
-        return parseVersions(candidate, runSDK("list " + candidate));
+        return listVersions(candidate).getValue();
     }
 
-    private boolean wasUpdateAvailableLastTime = false;
+    /**
+     * @param candidate candidate
+     * @return versions of the candidate with the status observed by this call
+     */
+    public SDKResult<List<Version>> listVersions(String candidate) {
+        Instant startedAt = Instant.now();
+        String response = runSDK("list " + candidate);
+        SDKStatus status = checkStatus(response, startedAt);
+        List<Version> versions = parseVersions(candidate, response, status.isOffline());
+        indexes.put(candidate, new VersionIndex(versions));
+        return new SDKResult<>(versions, response, status);
+    }
 
-    public boolean isUpdateAvailable() {
-        return wasUpdateAvailableLastTime;
+    // index of the versions listed last time, per candidate
+    private final Map<String, VersionIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * @param candidate candidate
+     * @return index of the versions listed last time. lists the versions if not listed yet
+     */
+    @NotNull
+    public VersionIndex index(String candidate) {
+        VersionIndex index = indexes.get(candidate);
+        if (index == null) {
+            listVersions(candidate);
+            index = indexes.get(candidate);
+        }
+        return index;
+    }
+
+    // latest status observed by any thread
+    private final AtomicReference<SDKStatus> status = new AtomicReference<>(SDKStatus.UNKNOWN);
+
+    /**
+     * @return the most recently observed status
+     */
+    public SDKStatus getStatus() {
+        return status.get();
     }
 
-    private boolean wasOfflineLastTime = false;
+    public boolean isUpdateAvailable() {
+        return status.get().isUpdateAvailable();
+    }
 
     public boolean isOffline() {
-        return wasOfflineLastTime;
+        return status.get().isOffline();
     }
 
-    void checkStatus(String status) {
-        wasOfflineLastTime = status.contains("INTERNET NOT REACHABLE!") || status.contains("Offline:");
-        wasUpdateAvailableLastTime = status.contains("SDKMAN is out-of-date and requires an update.");
+    /**
+     * @param response response of the sdk command
+     * @return status observed from the response
+     */
+    SDKStatus checkStatus(String response) {
+        return checkStatus(response, Instant.now());
+    }
+
+    /**
+     * @param response  response of the sdk command
+     * @param startedAt time the command was started
+     * @return status observed from the response
+     */
+    SDKStatus checkStatus(String response, Instant startedAt) {
+        SDKStatus observed = SDKStatus.parse(response, startedAt);
+        // a slow command finishing late must not override the status of a command started after it
+        status.accumulateAndGet(observed, SDKStatus::newer);
+        return observed;
     }
 
     List<Version> parseVersions(String candidate, String response) {
-        checkStatus(response);
-        if (!isOffline() && candidate.equals("java")) {
-            return parseJavaVersions(response);
+        return parseVersions(candidate, response, checkStatus(response).isOffline());
+    }
+
+    private List<Version> parseVersions(String candidate, String response, boolean offline) {
+        try (Metrics.Sample ignored = Metrics.start("shogun_parse", candidate.equals("java") ? "java" : "versions")) {
+            if (!offline && candidate.equals("java")) {
+                return parseJavaVersions(response);
+            }
+            return parseColumns(candidate, response, offline);
         }
+    }
+
+    private List<Version> parseColumns(String candidate, String response, boolean offline) {
         List<List<Version>> versionListList = new ArrayList<>();
         for (String line : response.split("\n")) {
-            if ((isOffline() && line.matches("^ [*>].*$")) || (!isOffline() && (line.startsWith(" ") && !line.contains("$") && !line.trim().isEmpty()))) {
+            if ((offline && line.matches("^ [*>].*$")) || (!offline && (line.startsWith(" ") && !line.contains("$") && !line.trim().isEmpty()))) {
                 // line contains version
                 String status = "";
                 boolean currentlyInUse = false;
@@ -186,7 +289,20 @@ public class SDK {
     }
 
     public List<String> listCandidates() {
-        return parseList(Arrays.asList(runSDK("list").split("\n")));
+        return candidates().getValue();
+    }
+
+    /**
+     * @return available candidates with the status observed by this call
+     */
+    public SDKResult<List<String>> candidates() {
+        Instant startedAt = Instant.now();
+        String response = runSDK("list");
+        List<String> candidates;
+        try (Metrics.Sample ignored = Metrics.start("shogun_parse", "candidates")) {
+            candidates = parseList(Arrays.asList(response.split("\n")));
+        }
+        return new SDKResult<>(candidates, response, checkStatus(response, startedAt));
     }
 
     static List<String> parseList(List<String> list) {
@@ -228,17 +344,89 @@ public class SDK {
             installLocal(version.getCandidate(), version.getIdentifier(), version.getPath());
         } else {
             StringBuilder progress = new StringBuilder(6); // Max is 100.0%
-            runSDK(String.format("install %s %s", version.getCandidate(), version.getIdentifier()),
-                    progressConsumer == null ? ch -> {} : ch -> {
-                if (Character.isDigit(ch) || ch == '.') {
-                    progress.append(ch);
+            String archiveName = ArchiveMirror.archiveName(version.getCandidate(), version.getIdentifier());
+            // installs of other candidates can go in parallel
+            try (SDKLock ignored = SDKLock.candidate(version.getCandidate()); SDKLock ignored2 = SDKLock.archive(archiveName)) {
+                Path archive = getArchivesPath().resolve(archiveName);
+                String expected = ArchiveChecksum.recorded(version.getCandidate(), version.getIdentifier());
+                verifyArchive(archive, expected);
+                // installed from the store if the peer has the archive or it can be downloaded
+                if (!ArchiveMirror.fetchFromPeer(version.getCandidate(), version.getIdentifier(), expected)) {
+                    SegmentedDownloader.downloadIfConfigured(version.getCandidate(), version.getIdentifier(),
+                            progressConsumer == null ? null : SegmentedDownloader.percentage(progressConsumer));
+                }
+                // extracted by Shogun only if the archive matches the checksum published by SDKMAN!. sdk install
+                // verifies the others itself
+                if (verifyArchive(archive, ArchiveChecksum.recorded(version.getCandidate(), version.getIdentifier()))
+                        && ArchiveExtractor.installIfConfigured(version.getCandidate(), version.getIdentifier(), archive)) {
                     return;
-                } else if (ch == '%') {
-                    progress.append(ch);
-                    progressConsumer.accept(progress.toString());
                 }
-                progress.setLength(0);
-            });
+                runSDKScript(handOffArchive(archive) + String.format("sdk install %s %s", version.getCandidate(), version.getIdentifier()),
+                        progressConsumer == null ? ch -> {} : ch -> {
+                    if (Character.isDigit(ch) || ch == '.') {
+                        progress.append(ch);
+                        return;
+                    } else if (ch == '%') {
+                        progress.append(ch);
+                        progressConsumer.accept(progress.toString());
+                    }
+                    progress.setLength(0);
+                });
+                // record the digest of the archive sdk install downloaded
+                verifyArchive(archive, ArchiveChecksum.recorded(version.getCandidate(), version.getIdentifier()));
+            }
+        }
+    }
+
+    /**
+     * Makes sdk install take the archive from the store in place of downloading it. The archive is hard linked to the
+     * download destination of sdk install, and the headers recorded with the archive are passed on so that sdk install
+     * verifies the checksum. Without recorded headers carrying the checksum, sdk install downloads the archive itself.
+     *
+     * @param archive archive in $SDKMAN_DIR/archives
+     * @return shell function definition overriding the download of sdk install, or empty if the archive is not in the
+     * store or no checksum is recorded for it
+     */
+    @NotNull
+    static String handOffArchive(Path archive) {
+        if (!Files.isRegularFile(archive)) {
+            return "";
+        }
+        String fileName = archive.getFileName().toString();
+        String headersName = fileName.substring(0, fileName.length() - ".zip".length()) + ".headers";
+        Path headersFile = archive.toAbsolutePath().getParent().resolveSibling("var").resolve("metadata").resolve(headersName);
+        if (ArchiveChecksum.recorded(headersFile) == null) {
+            logger.debug("No checksum recorded in {}. Leaving the download to sdk install", headersFile);
+            return "";
+        }
+        String stored = "\"${SDKMAN_DIR}/archives/" + fileName + "\"";
+        String headers = "\"${SDKMAN_DIR}/var/metadata/" + headersName + "\"";
+        // called as __sdkman_secure_curl_download <url> --output <file> --dump-header <headers file>
+        return "__sdkman_secure_curl_download() { ln -f " + stored + " \"$3\" 2>/dev/null || cp " + stored + " \"$3\"; "
+                + "cp " + headers + " \"$5\"; };";
+    }
+
+    /**
+     * Removes the archive from the store if it doesn't match the checksum so that it won't be reused.
+     *
+     * @param archive  archive in the store
+     * @param expected expected checksum, or null if unknown
+     * @return true if the archive is in the store and matches the expected checksum
+     */
+    private static boolean verifyArchive(Path archive, @Nullable String expected) {
+        if (!Files.isRegularFile(archive)) {
+            return false;
+        }
+        try {
+            ArchiveChecksum.Verification verification = ArchiveChecksum.verify(archive, expected);
+            if (verification == ArchiveChecksum.Verification.MISMATCH) {
+                ArchiveChecksum.discard(archive);
+            }
+            return verification == ArchiveChecksum.Verification.VERIFIED;
+        } catch (IOException e) {
+            logger.warn("Failed to verify {}", archive, e);
+            ArchiveChecksum.discard(archive);
+            return false;
         }
     }
 
@@ -246,21 +434,96 @@ public class SDK {
      * @param candidate  candidate
      * @param identifier identifier
      * @param path       local path
-     * @return true if the
+     * @return true if the version is registered
      */
     boolean installLocal(String candidate, String identifier, String path) {
         if (identifier.contains(" ")) {
             throw new IllegalArgumentException("identifier should not contain white space(s).");
         }
+        return registerLocal(candidate, List.<String[]>of(new String[]{identifier, path})).get(0).isRegistered();
+    }
+
+    /**
+     * Registers JDKs detected by {@link JDKScanner} in one pass by creating symbolic links under candidates/java.
+     *
+     * @param versions JDKs to be registered
+     * @return result per JDK, in the same order
+     */
+    public List<RegistrationResult> registerAll(List<NotRegisteredVersion> versions) {
+        return registerLocal("java", versions.stream()
+                .map(e -> new String[]{e.getIdentifier(), e.getPath()}).collect(Collectors.toList()));
+    }
+
+    private final static Pattern validIdentifier = Pattern.compile("^[a-zA-Z0-9._+\\-]+$");
+
+    /**
+     * @param candidate          candidate
+     * @param identifierAndPaths pairs of identifier and local path
+     * @return result per pair
+     */
+    private List<RegistrationResult> registerLocal(String candidate, List<String[]> identifierAndPaths) {
+        try (SDKLock ignored = SDKLock.candidate(candidate)) {
+            return registerLocalLocked(candidate, identifierAndPaths);
+        }
+    }
+
+    private List<RegistrationResult> registerLocalLocked(String candidate, List<String[]> identifierAndPaths) {
+        Path candidateDir = Paths.get(getSDK_MAN_DIR(), "candidates", candidate);
+        List<RegistrationResult> results = new ArrayList<>();
+        Set<String> identifiers = new HashSet<>();
+        // validate everything up front
+        for (String[] identifierAndPath : identifierAndPaths) {
+            String identifier = identifierAndPath[0];
+            String path = identifierAndPath[1];
+            RegistrationResult result = null;
+            if (identifier == null || !validIdentifier.matcher(identifier).matches() || identifier.equals("current")) {
+                result = new RegistrationResult(identifier, path, RegistrationResult.Status.INVALID_IDENTIFIER, "Invalid identifier!");
+            } else if (!identifiers.add(identifier) || Files.exists(candidateDir.resolve(identifier), LinkOption.NOFOLLOW_LINKS)) {
+                result = new RegistrationResult(identifier, path, RegistrationResult.Status.ALREADY_REGISTERED,
+                        String.format("%s %s is already installed.", candidate, identifier));
+            } else if (!Files.isDirectory(Paths.get(path))) {
+                result = new RegistrationResult(identifier, path, RegistrationResult.Status.INVALID_PATH, "Invalid path!");
+            }
+            results.add(result);
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                String[] identifierAndPath = identifierAndPaths.get(i);
+                results.set(i, link(candidateDir, candidate, identifierAndPath[0], identifierAndPath[1]));
+            }
+        }
+        logger.debug("Registered: {}", results);
+        return results;
+    }
+
+    private final static Pattern windowsPath = Pattern.compile("^[/]?([a-zA-Z])[:]?[\\\\|/]?(.*)$");
+
+    private RegistrationResult link(Path candidateDir, String candidate, String identifier, String path) {
+        Path absolutePath = Paths.get(path).toAbsolutePath();
+        try {
+            Files.createDirectories(candidateDir);
+            Files.createSymbolicLink(candidateDir.resolve(identifier), absolutePath);
+            return new RegistrationResult(identifier, path, RegistrationResult.Status.REGISTERED,
+                    String.format("Linked %s %s to %s", candidate, identifier, absolutePath));
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Failed to link {} {} to {}, falling back to sdk command", candidate, identifier, absolutePath, e);
+        }
         var installPath = escape(path);
         if (Platform.isWindows) {
-            var matcher = Pattern.compile("^[/]?([a-zA-Z])[:]?[\\\\|/]?(.*)$").matcher(installPath);
+            var matcher = windowsPath.matcher(installPath);
             if (matcher.matches()) {
                 installPath = matcher.replaceAll("/$1/$2").replaceAll("\\\\", "/");
             }
         }
         String result = runSDK(String.format("install %s %s %s", candidate, escape(identifier), installPath));
-        return !result.contains("Invalid path!") && !result.contains("already installed.");
+        if (result.contains("Invalid path!")) {
+            return new RegistrationResult(identifier, path, RegistrationResult.Status.INVALID_PATH, result);
+        } else if (result.contains("already installed.")) {
+            return new RegistrationResult(identifier, path, RegistrationResult.Status.ALREADY_REGISTERED, result);
+        } else if (Files.exists(candidateDir.resolve(identifier), LinkOption.NOFOLLOW_LINKS)) {
+            return new RegistrationResult(identifier, path, RegistrationResult.Status.REGISTERED, result);
+        }
+        return new RegistrationResult(identifier, path, RegistrationResult.Status.FAILED, result);
     }
 
     private String escape(String string) {
@@ -268,11 +531,79 @@ public class SDK {
     }
 
     public void uninstall(Version version) {
-        runSDK(String.format("uninstall %s %s", version.getCandidate(), escape(version.getIdentifier())));
+        uninstall(version.getCandidate(), version.getIdentifier());
     }
 
+    /**
+     * Unlinks locally installed version, or moves installed version out of candidates directory and deletes it in the
+     * background.
+     *
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @throws IllegalArgumentException if the candidate or the identifier doesn't name a version directory
+     */
     void uninstall(String candidate, String identifier) {
-        runSDK(String.format("uninstall %s %s", candidate, escape(identifier)));
+        if (candidate == null || !validIdentifier.matcher(candidate).matches() || candidate.matches("^\\.+$")
+                || identifier == null || !validIdentifier.matcher(identifier).matches() || identifier.matches("^\\.+$")
+                || identifier.equals("current")) {
+            throw new IllegalArgumentException(String.format("Invalid version: %s %s", candidate, identifier));
+        }
+        Path candidateDir = Paths.get(getSDK_MAN_DIR(), "candidates", candidate);
+        Path versionDir = candidateDir.resolve(identifier);
+        try (SDKLock ignored = SDKLock.candidate(candidate)) {
+            try {
+                Path current = candidateDir.resolve("current");
+                if (isLinkedTo(current, versionDir)) {
+                    logger.debug("Deselecting {} {}", candidate, identifier);
+                    Files.delete(current);
+                }
+                if (Files.isSymbolicLink(versionDir)) {
+                    // local version. the linked JDK itself must not be touched
+                    Files.delete(versionDir);
+                } else if (Files.isDirectory(versionDir)) {
+                    Tombstone.bury(versionDir, getGraveyard());
+                } else {
+                    logger.debug("{} {} is not installed.", candidate, identifier);
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.debug("Failed to uninstall {} {}, falling back to sdk command", candidate, identifier, e);
+                runSDK(String.format("uninstall %s %s", candidate, escape(identifier)));
+            }
+        }
+    }
+
+    /**
+     * @param link   link to be checked
+     * @param target version directory
+     * @return true if link is a symbolic link to target, relative or through another path
+     */
+    static boolean isLinkedTo(Path link, Path target) {
+        if (!Files.isSymbolicLink(link)) {
+            return false;
+        }
+        try {
+            Path linked = link.getParent().resolve(Files.readSymbolicLink(link)).normalize();
+            if (linked.equals(target.normalize())) {
+                return true;
+            }
+            // SDKMAN_DIR reached through another path
+            return Files.exists(linked) && Files.exists(target) && Files.isSameFile(linked, target);
+        } catch (IOException e) {
+            logger.debug("Failed to read {}", link, e);
+            return false;
+        }
+    }
+
+    @NotNull
+    private static Path getGraveyard() {
+        return Paths.get(getSDK_MAN_DIR(), "tmp", "shogun-graveyard");
+    }
+
+    /**
+     * Resumes deletion of uninstalled versions interrupted last time.
+     */
+    public void purgeUninstalledVersions() {
+        Tombstone.purge(getGraveyard());
     }
 
     public List<String> getInstalledCandidates() {
@@ -295,7 +626,49 @@ public class SDK {
     }
 
     public void makeDefault(String candidate, Version version) {
-        runSDK(String.format("default %s %s", candidate, version.getIdentifier()));
+        Path candidateDir = Paths.get(getSDK_MAN_DIR(), "candidates", candidate);
+        try (SDKLock ignored = SDKLock.candidate(candidate)) {
+            if (!linkCurrent(candidateDir, version.getIdentifier())) {
+                runSDK(String.format("default %s %s", candidate, version.getIdentifier()));
+            }
+        }
+    }
+
+    /**
+     * Points candidates/[candidate]/current to the specified version. A new symbolic link is created under a temporary
+     * name and renamed over current so that current never goes missing.
+     *
+     * @param candidateDir candidates/[candidate] directory
+     * @param identifier   identifier
+     * @return false if the layout is unexpected and sdk command needs to be used instead
+     */
+    static boolean linkCurrent(Path candidateDir, String identifier) {
+        Path target = candidateDir.resolve(identifier);
+        if (!Files.isDirectory(target)) {
+            throw new IllegalStateException(String.format("%s is not installed.", target));
+        }
+        Path current = candidateDir.resolve("current");
+        if (Files.exists(current, LinkOption.NOFOLLOW_LINKS) && !Files.isSymbolicLink(current)) {
+            // e.g. current is a copy of the version
+            logger.debug("{} is not a symbolic link", current);
+            return false;
+        }
+        Path temp = candidateDir.resolve(".current-" + ProcessHandle.current().pid() + "-" + Thread.currentThread().getId());
+        try {
+            Files.deleteIfExists(temp);
+            Files.createSymbolicLink(temp, target);
+            // rename(2) replaces current atomically
+            Files.move(temp, current, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Linked {} to {}", current, target);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Failed to link {} to {}", current, target, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignore) {
+            }
+            return false;
+        }
     }
 
     public static String runSDK(String command) {
@@ -306,6 +679,14 @@ public class SDK {
         SDKLauncher.exec(consumer, String.format("source %s/bin/sdkman-init.sh;sdk %s", getSDK_MAN_DIR(), command));
     }
 
+    /**
+     * @param script   script run after sourcing sdkman-init.sh
+     * @param consumer consumes the output
+     */
+    private static void runSDKScript(String script, Consumer<Character> consumer) {
+        SDKLauncher.exec(consumer, String.format("source %s/bin/sdkman-init.sh;%s", getSDK_MAN_DIR(), script));
+    }
+
     static List<String> listLocallyInstalledPaths() {
         File file = new File(SDK.getSDK_MAN_DIR() + File.separator + "candidates" + File.separator + "java");
         List<String> list = new ArrayList<>();
@@ -326,17 +707,88 @@ public class SDK {
     }
 
 
-    private static String sdkManDir = null;
+    private static volatile String sdkManDir = null;
+    private final static Pattern unixStyleWindowsPath = Pattern.compile("^/([a-zA-Z])(/.*)$");
 
     static String getSDK_MAN_DIR() {
-        if (sdkManDir == null) {
-            sdkManDir = SDKLauncher.exec("source ~/.bash_profile>/dev/null;echo $SDKMAN_DIR").trim();
-            var matcher = Pattern.compile("^/([a-zA-Z])(/.*)$").matcher(sdkManDir);
-            if (matcher.matches()) {
-                sdkManDir = matcher.replaceFirst("$1:$2");
+        String dir = sdkManDir;
+        if (dir == null) {
+            synchronized (SDK.class) {
+                dir = sdkManDir;
+                if (dir == null) {
+                    Path persisted = Platform.getShogunDir().resolve("sdkman-dir");
+                    dir = resolveSDK_MAN_DIR(System.getenv(), System.getProperty("user.home"), persisted,
+                            () -> SDKLauncher.exec("source ~/.bash_profile>/dev/null 2>&1;echo $SDKMAN_DIR").trim());
+                    logger.debug("SDKMAN_DIR: {}", dir);
+                    sdkManDir = dir;
+                }
             }
-            logger.debug("SDKMAN_DIR: {}", sdkManDir);
         }
-        return sdkManDir;
+        return dir;
+    }
+
+    /**
+     * Resolves SDKMAN_DIR from, in order: environment variable, ~/.sdkman, value persisted on the last successful
+     * resolution, and $SDKMAN_DIR after sourcing ~/.bash_profile.
+     *
+     * @param env       environment variables
+     * @param userHome  user home
+     * @param persisted file to persist the resolved value
+     * @param shell     resolves SDKMAN_DIR with shell
+     * @return SDKMAN_DIR. ~/.sdkman if SDKMAN! is not installed
+     */
+    static String resolveSDK_MAN_DIR(Map<String, String> env, String userHome, Path persisted, Supplier<String> shell) {
+        String defaultDir = userHome + File.separator + ".sdkman";
+        String fromEnv = toPlatformPath(env.get("SDKMAN_DIR"));
+        String resolved = null;
+        if (isDirectory(fromEnv)) {
+            resolved = fromEnv;
+        } else if (isDirectory(defaultDir)) {
+            resolved = defaultDir;
+        } else {
+            try {
+                if (Files.exists(persisted)) {
+                    String fromFile = Files.readString(persisted).trim();
+                    if (isDirectory(fromFile)) {
+                        return fromFile;
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to read {}", persisted, e);
+            }
+            String fromShell = toPlatformPath(shell.get());
+            if (isDirectory(fromShell)) {
+                resolved = fromShell;
+            }
+        }
+        if (resolved == null) {
+            // SDKMAN! not installed
+            return defaultDir;
+        }
+        try {
+            if (!Files.exists(persisted) || !resolved.equals(Files.readString(persisted).trim())) {
+                Files.createDirectories(persisted.getParent());
+                Files.writeString(persisted, resolved);
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to persist SDKMAN_DIR to {}", persisted, e);
+        }
+        return resolved;
+    }
+
+    private static boolean isDirectory(String path) {
+        return path != null && !path.isEmpty() && Files.isDirectory(Paths.get(path));
+    }
+
+    private static String toPlatformPath(String path) {
+        if (path == null) {
+            return null;
+        }
+        // /c/Users/... to c:/Users/...
+        var matcher = unixStyleWindowsPath.matcher(path);
+        if (Platform.isWindows && matcher.matches()) {
+            return matcher.replaceFirst("$1:$2");
+        }
+        return path;
     }
 }
@@ -0,0 +1,20 @@
+package shogun.sdk;
+
+/**
+ * Thrown when a candidate or the archive store is locked by another operation for longer than the timeout.
+ */
+public class SDKBusyException extends IllegalStateException {
+    private final String resource;
+
+    SDKBusyException(String resource, long timeoutMillis) {
+        super(String.format("%s is busy. Gave up after %d ms.", resource, timeoutMillis));
+        this.resource = resource;
+    }
+
+    /**
+     * @return name of the locked resource. candidate name, or "archives"
+     */
+    public String getResource() {
+        return resource;
+    }
+}
@@ -2,11 +2,16 @@ package shogun.sdk;
 
 import org.slf4j.Logger;
 import shogun.logging.LoggerFactory;
+import shogun.metrics.CommandEvent;
+import shogun.metrics.Metrics;
 
 import java.io.*;
 import java.lang.ProcessBuilder.Redirect;
 import java.util.function.Consumer;
 import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class SDKLauncher {
     private final static Logger logger = LoggerFactory.getLogger();
@@ -19,7 +24,9 @@ public class SDKLauncher {
      */
     public static String exec(String... command) {
         File tempFile = null;
-        try {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        try (Metrics.Sample sample = Metrics.start("shogun_launcher_exec", commandType(command))) {
             tempFile = File.createTempFile("sdk", "log");
             logger.debug("Command to be executed: {}", (Object) command);
             String[] commands = new String[command.length + 2];
@@ -30,21 +37,31 @@ public class SDKLauncher {
                     .directory(new File("."))
                     .redirectErrorStream(true)
                     .redirectOutput(Redirect.to(tempFile));
+            long spawnStart = System.nanoTime();
             Process process = pb.start();
+            event.spawnTime = System.nanoTime() - spawnStart;
             OutputStream outputStream = process.getOutputStream();
             PrintWriter printWriter = new PrintWriter(outputStream);
             // say yes
             printWriter.write("n\n");
             printWriter.flush();
-            process.waitFor();
+            event.exitCode = process.waitFor();
+            if (event.exitCode != 0) {
+                sample.failed();
+            }
 
             byte[] responseBytes = Files.readAllBytes(tempFile.toPath());
+            event.outputSize = responseBytes.length;
             String response = trimANSIEscapeCodes(new String(responseBytes));
-            logger.debug("Response: {}", response);
+            logResponse(response);
             return response;
         } catch (IOException | InterruptedException e) {
             throw new RuntimeException(e);
         } finally {
+            if (event.shouldCommit()) {
+                event.command = String.join(" ", command);
+                event.commit();
+            }
             if (tempFile != null && tempFile.exists()) {
                 if (!tempFile.delete()) {
                     logger.warn("Failed to delete {} even though it exists, try deleteOnExit", tempFile);
@@ -56,7 +73,9 @@ public class SDKLauncher {
 
     public static void exec(Consumer<Character> charConsumer, String... command) {
         File tempFile = null;
-        try {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        try (Metrics.Sample sample = Metrics.start("shogun_launcher_exec", commandType(command))) {
             tempFile = File.createTempFile("sdk", "log");
             logger.debug("Command to be executed: {}", (Object) command);
             String[] commands = new String[command.length + 2];
@@ -67,7 +86,9 @@ public class SDKLauncher {
                     .directory(new File("."))
                     .redirectErrorStream(true)
                     .redirectOutput(Redirect.to(tempFile));
+            long spawnStart = System.nanoTime();
             Process process = pb.start();
+            event.spawnTime = System.nanoTime() - spawnStart;
             OutputStream outputStream = process.getOutputStream();
             PrintWriter printWriter = new PrintWriter(outputStream);
             // say yes
@@ -83,9 +104,18 @@ public class SDKLauncher {
                     charConsumer.accept((char) ch);
                 }
             }
+            event.exitCode = process.exitValue();
+            event.outputSize = tempFile.length();
+            if (event.exitCode != 0) {
+                sample.failed();
+            }
         } catch (IOException | InterruptedException e) {
             throw new RuntimeException(e);
         } finally {
+            if (event.shouldCommit()) {
+                event.command = String.join(" ", command);
+                event.commit();
+            }
             if (tempFile != null && tempFile.exists()) {
                 if (!tempFile.delete()) {
                     logger.warn("Failed to delete {} even though it exists, try deleteOnExit", tempFile);
@@ -95,6 +125,52 @@ public class SDKLauncher {
         }
     }
 
+    // responses longer than this are logged in full only once in RESPONSE_SAMPLE_RATE times, or at TRACE level
+    private final static int RESPONSE_LOG_LIMIT = Integer.getInteger("shogun.log.responseLimit", 2048);
+    private final static int RESPONSE_SAMPLE_RATE = Math.max(1, Integer.getInteger("shogun.log.responseSampleRate", 16));
+    private final static AtomicLong largeResponses = new AtomicLong();
+
+    private static void logResponse(String response) {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        if (response.length() <= RESPONSE_LOG_LIMIT || logger.isTraceEnabled()
+                || largeResponses.getAndIncrement() % RESPONSE_SAMPLE_RATE == 0) {
+            logger.debug("Response: {}", response);
+        } else {
+            logger.debug("Response: {}", summarize(response, RESPONSE_LOG_LIMIT));
+        }
+    }
+
+    /**
+     * @param response  response
+     * @param headLength number of characters to keep
+     * @return the head of the response followed by its size
+     */
+    static String summarize(String response, int headLength) {
+        if (response.length() <= headLength) {
+            return response;
+        }
+        long lines = response.chars().filter(e -> e == '\n').count() + 1;
+        return String.format("%s... (%d chars, %d lines in total)", response.substring(0, headLength), response.length(), lines);
+    }
+
+    private final static Pattern sdkCommand = Pattern.compile("sdkman-init\\.sh;(?:.*;)?sdk (\\S+)");
+
+    /**
+     * @param command command
+     * @return "sdk [subcommand]" for sdk commands, or the name of the executable
+     */
+    static String commandType(String... command) {
+        String joined = String.join(" ", command);
+        Matcher matcher = sdkCommand.matcher(joined);
+        if (matcher.find()) {
+            return "sdk " + matcher.group(1);
+        }
+        String executable = joined.trim().split("\\s+")[0];
+        return executable.substring(Math.max(executable.lastIndexOf('/'), executable.lastIndexOf('\\')) + 1);
+    }
+
     private static String getBash() {
         if (Platform.isWindows) {
             return System.getProperty("shell.path", "c:/Program Files/Git/bin/bash");
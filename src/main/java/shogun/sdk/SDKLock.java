@@ -0,0 +1,163 @@
+package shogun.sdk;
+
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Advisory lock on a candidate or an archive in the store, shared by threads in this process and other Shogun
+ * processes.<br>
+ * Threads are serialized with a {@link ReentrantLock} as {@link FileChannel#lock()} is held per process, then the
+ * lock file under $SDKMAN_DIR/tmp/shogun-locks is locked with {@link FileChannel#tryLock()}. Locks must be acquired
+ * in the order of candidate, then archive.
+ */
+final class SDKLock implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger();
+    static final String ARCHIVES = "archives";
+    private static final long TIMEOUT_MILLIS = Long.getLong("shogun.lockTimeout", 3000);
+    private static final long RETRY_INTERVAL_MILLIS = 50;
+    private static final Map<String, Holder> holders = new ConcurrentHashMap<>();
+
+    private final Holder holder;
+
+    private SDKLock(Holder holder) {
+        this.holder = holder;
+    }
+
+    /**
+     * @param candidate candidate
+     * @return acquired lock
+     * @throws SDKBusyException if the candidate is not available within the timeout
+     */
+    static SDKLock candidate(String candidate) {
+        return acquire(getLockDir().resolve(candidate + ".lock"), candidate, TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param archiveName file name of the archive in the store
+     * @return acquired lock
+     * @throws SDKBusyException if the archive is not available within the timeout
+     */
+    static SDKLock archive(String archiveName) {
+        return archive(archiveName, TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param archiveName   file name of the archive in the store
+     * @param timeoutMillis timeout in milliseconds
+     * @return acquired lock
+     * @throws SDKBusyException if the archive is not available within the timeout
+     */
+    static SDKLock archive(String archiveName, long timeoutMillis) {
+        return acquire(getLockDir().resolve(ARCHIVES + "-" + archiveName + ".lock"), ARCHIVES + "/" + archiveName, timeoutMillis);
+    }
+
+    private static Path getLockDir() {
+        return Paths.get(SDK.getSDK_MAN_DIR(), "tmp", "shogun-locks");
+    }
+
+    static SDKLock acquire(Path lockFile, String resource, long timeoutMillis) {
+        Holder holder = holders.computeIfAbsent(lockFile.toAbsolutePath().toString(), e -> new Holder(lockFile));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            if (!holder.lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SDKBusyException(resource, timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SDKBusyException(resource, timeoutMillis);
+        }
+        if (holder.lock.getHoldCount() == 1) {
+            boolean locked;
+            try {
+                locked = holder.lockFile(deadline);
+            } catch (IOException e) {
+                // the lock is advisory. don't block operations on a read-only or broken lock directory
+                logger.warn("Failed to lock {}, proceeding without inter-process lock", lockFile, e);
+                locked = true;
+            }
+            if (!locked) {
+                holder.lock.unlock();
+                throw new SDKBusyException(resource, timeoutMillis);
+            }
+        }
+        logger.debug("Locked {}", resource);
+        return new SDKLock(holder);
+    }
+
+    @Override
+    public void close() {
+        if (holder.lock.getHoldCount() == 1) {
+            holder.releaseFile();
+        }
+        holder.lock.unlock();
+    }
+
+    private static class Holder {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Path lockFile;
+        // guarded by lock
+        private FileChannel channel;
+        private FileLock fileLock;
+
+        Holder(Path lockFile) {
+            this.lockFile = lockFile;
+        }
+
+        /**
+         * @param deadline deadline in {@link System#nanoTime()}
+         * @return false if another process holds the lock until the deadline
+         * @throws IOException if the lock file can't be opened
+         */
+        boolean lockFile(long deadline) throws IOException {
+            Files.createDirectories(lockFile.getParent());
+            FileChannel newChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                FileLock newFileLock;
+                while ((newFileLock = newChannel.tryLock()) == null) {
+                    if (deadline - System.nanoTime() < 0) {
+                        newChannel.close();
+                        return false;
+                    }
+                    Thread.sleep(RETRY_INTERVAL_MILLIS);
+                }
+                channel = newChannel;
+                fileLock = newFileLock;
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                newChannel.close();
+                return false;
+            } catch (IOException | RuntimeException e) {
+                newChannel.close();
+                throw e;
+            }
+        }
+
+        void releaseFile() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                fileLock.release();
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to release {}", lockFile, e);
+            } finally {
+                fileLock = null;
+                channel = null;
+            }
+        }
+    }
+}
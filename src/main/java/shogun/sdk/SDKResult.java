@@ -0,0 +1,42 @@
+package shogun.sdk;
+
+/**
+ * Result of an sdk command. Carries the parsed value together with the raw output and the status observed by the
+ * same call, so that callers on different threads never see each other's status.
+ *
+ * @param <T> type of the parsed value
+ */
+public final class SDKResult<T> {
+    private final T value;
+    private final String output;
+    private final SDKStatus status;
+
+    SDKResult(T value, String output, SDKStatus status) {
+        this.value = value;
+        this.output = output;
+        this.status = status;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return raw output of the sdk command
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    public SDKStatus getStatus() {
+        return status;
+    }
+
+    public boolean isOffline() {
+        return status.isOffline();
+    }
+
+    public boolean isUpdateAvailable() {
+        return status.isUpdateAvailable();
+    }
+}
@@ -0,0 +1,58 @@
+package shogun.sdk;
+
+import java.time.Instant;
+
+/**
+ * Offline / update available state of SDKMAN! observed from a response of the sdk command.
+ */
+public final class SDKStatus {
+    static final SDKStatus UNKNOWN = new SDKStatus(false, false, Instant.EPOCH);
+
+    private final boolean offline;
+    private final boolean updateAvailable;
+    private final Instant observedAt;
+
+    SDKStatus(boolean offline, boolean updateAvailable, Instant observedAt) {
+        this.offline = offline;
+        this.updateAvailable = updateAvailable;
+        this.observedAt = observedAt;
+    }
+
+    /**
+     * @param response  response of the sdk command
+     * @param startedAt time the command was started
+     * @return status observed from the response
+     */
+    static SDKStatus parse(String response, Instant startedAt) {
+        return new SDKStatus(response.contains("INTERNET NOT REACHABLE!") || response.contains("Offline:"),
+                response.contains("SDKMAN is out-of-date and requires an update."), startedAt);
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    public boolean isUpdateAvailable() {
+        return updateAvailable;
+    }
+
+    /**
+     * @return time the command the status was observed from was started
+     */
+    public Instant getObservedAt() {
+        return observedAt;
+    }
+
+    /**
+     * @param other another status
+     * @return newer one of this and the other
+     */
+    SDKStatus newer(SDKStatus other) {
+        return other.observedAt.isBefore(observedAt) ? this : other;
+    }
+
+    @Override
+    public String toString() {
+        return "SDKStatus{offline=" + offline + ", updateAvailable=" + updateAvailable + ", observedAt=" + observedAt + "}";
+    }
+}
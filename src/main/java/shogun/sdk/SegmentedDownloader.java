@@ -0,0 +1,843 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+import shogun.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads candidate archives from the SDKMAN! broker into the archive store with parallel HTTP range requests.<br>
+ * The archive is split into -Dshogun.download.segments segments (default 4, 1 disables the downloader), each fetched on
+ * its own connection and written in place to [archive].part with positional writes. The part file is renamed to the
+ * archive once it matches the published checksum. Servers not supporting range requests are downloaded in a single
+ * stream.<br>
+ * The checksum is computed while downloading, and only if one is published. The single stream is hashed on its way to
+ * the disk. Segments are hashed in order: bytes written at the hashed position are hashed from memory, and bytes
+ * written ahead of it are read back from the part file once the position reaches them. Ranges completed by an earlier
+ * attempt are read back from the part file.<br>
+ * Completed ranges are recorded in a {@link DownloadJournal} beside the part file. Failed attempts are retried
+ * -Dshogun.download.retries times (default 5) with exponential backoff, and both the retries and the next install
+ * continue from the recorded ranges.
+ */
+final class SegmentedDownloader {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private static final Pattern validName = Pattern.compile("^[a-zA-Z0-9._+\\-]+$");
+    private static final Pattern contentRange = Pattern.compile("^bytes (\\d+)-(\\d+)/(\\d+)$");
+    static final String DEFAULT_BROKER = "https://broker.sdkman.io";
+    private static final int MAX_REDIRECTS = 10;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // smaller segments don't pay off the extra round trip
+    static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+
+    // progress of each segment is recorded in the journal at least this often
+    private static final long CHECKPOINT_BYTES = 4 * 1024 * 1024;
+    private static final long MAX_BACKOFF_MILLIS = 60000;
+
+    private final int segments;
+    private final long minSegmentSize;
+    private final int retries;
+    private final long backoffMillis;
+    @Nullable
+    private final Throttle throttle;
+    private final BooleanSupplier paused;
+    private final long maxLength;
+
+    SegmentedDownloader(int segments, long minSegmentSize) {
+        this(segments, minSegmentSize, Integer.getInteger("shogun.download.retries", 5), 1000);
+    }
+
+    SegmentedDownloader(int segments, long minSegmentSize, int retries, long backoffMillis) {
+        this(segments, minSegmentSize, retries, backoffMillis, null, () -> false, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param throttle  limits the rate of all segments together, or null for no limit
+     * @param paused    checked while downloading. the download stops, keeping the part file and the journal, once true
+     * @param maxLength archives larger than this are not downloaded
+     */
+    SegmentedDownloader(int segments, long minSegmentSize, int retries, long backoffMillis, @Nullable Throttle throttle,
+                        BooleanSupplier paused, long maxLength) {
+        this.segments = Math.max(1, segments);
+        this.minSegmentSize = Math.max(1, minSegmentSize);
+        this.retries = Math.max(0, retries);
+        this.backoffMillis = Math.max(1, backoffMillis);
+        this.throttle = throttle;
+        this.paused = paused;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Downloads the archive into the store unless -Dshogun.download.segments is 1 or less. The X-Sdkman headers of the
+     * broker are recorded in $SDKMAN_DIR/var/metadata as sdk install does, and the archive is verified with the checksum
+     * published there.
+     *
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @param progress   notified of the bytes written, or null
+     * @return true if the archive is in the store
+     */
+    static boolean downloadIfConfigured(String candidate, String identifier, @Nullable Progress progress) {
+        int segments = Integer.getInteger("shogun.download.segments", 4);
+        if (segments <= 1) {
+            return false;
+        }
+        return downloadToStore(candidate, identifier, new SegmentedDownloader(segments, MIN_SEGMENT_SIZE), progress);
+    }
+
+    /**
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @param downloader downloader to be used
+     * @param progress   notified of the bytes written, or null
+     * @return true if the archive is in the store
+     */
+    static boolean downloadToStore(String candidate, String identifier, SegmentedDownloader downloader,
+                                   @Nullable Progress progress) {
+        if (!validName.matcher(candidate).matches() || !validName.matcher(identifier).matches()) {
+            return false;
+        }
+        Path archive = SDK.getArchivesPath().resolve(ArchiveMirror.archiveName(candidate, identifier));
+        if (Files.isRegularFile(archive)) {
+            return true;
+        }
+        try (Metrics.Sample sample = Metrics.start("shogun_download", candidate)) {
+            try {
+                URI uri = brokerUri(candidate, identifier);
+                if (uri == null) {
+                    sample.failed();
+                    return false;
+                }
+                Files.createDirectories(archive.getParent());
+                List<String> headers = downloader.download(uri, archive, progress);
+                Path headersFile = ArchiveChecksum.headersFile(candidate, identifier);
+                writeHeaders(headersFile, headers);
+                if (ArchiveChecksum.verify(archive, ArchiveChecksum.recorded(headersFile)) == ArchiveChecksum.Verification.MISMATCH) {
+                    ArchiveChecksum.discard(archive);
+                    sample.failed();
+                    return false;
+                }
+                logger.info("Downloaded {} from {}", archive, uri);
+                return true;
+            } catch (PausedException e) {
+                logger.info("Paused downloading {} {}", candidate, identifier);
+                return false;
+            } catch (IOException | IllegalArgumentException e) {
+                logger.info("Failed to download {} {}", candidate, identifier, e);
+                sample.failed();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @return download URI of the SDKMAN! broker for this platform, or null if the platform is not known yet
+     * @throws IOException if failed to read the platform
+     */
+    @Nullable
+    static URI brokerUri(String candidate, String identifier) throws IOException {
+        Path platformFile = Paths.get(SDK.getSDK_MAN_DIR(), "var", "platform");
+        if (!Files.exists(platformFile)) {
+            logger.debug("{} not found. Leaving the download to sdk install", platformFile);
+            return null;
+        }
+        String broker = System.getenv("SDKMAN_BROKER_API");
+        return URI.create((broker == null || broker.isEmpty() ? DEFAULT_BROKER : broker) + "/download/"
+                + candidate + "/" + identifier + "/" + Files.readString(platformFile).trim());
+    }
+
+    /**
+     * Asks the SDKMAN! broker for the checksum of the archive without downloading it.
+     *
+     * @param candidate  candidate
+     * @param identifier identifier
+     * @return checksum published by SDKMAN! in lower case hex, or null if not published or not reachable
+     */
+    @Nullable
+    static String published(String candidate, String identifier) {
+        if (!validName.matcher(candidate).matches() || !validName.matcher(identifier).matches()) {
+            return null;
+        }
+        try {
+            URI uri = brokerUri(candidate, identifier);
+            return uri == null ? null : published(uri);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("Failed to look up the checksum of {} {}", candidate, identifier, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param uri download URI of the broker
+     * @return checksum sent by the broker or a server it redirects to, or null if none
+     * @throws IOException if failed to connect
+     */
+    @Nullable
+    static String published(URI uri) throws IOException {
+        URL url = uri.toURL();
+        for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+            HttpURLConnection connection = open(url);
+            connection.setRequestMethod("HEAD");
+            try {
+                int responseCode = connection.getResponseCode();
+                String checksum = connection.getHeaderField(ArchiveChecksum.HEADER);
+                if (checksum != null && !checksum.isBlank()) {
+                    return checksum.trim().toLowerCase(Locale.ROOT);
+                }
+                if (responseCode < 300 || 400 <= responseCode || connection.getHeaderField("Location") == null) {
+                    return null;
+                }
+                url = new URL(url, connection.getHeaderField("Location"));
+            } finally {
+                connection.disconnect();
+            }
+        }
+        throw new IOException("Too many redirects: " + uri);
+    }
+
+    static void writeHeaders(Path headersFile, List<String> headers) throws IOException {
+        Files.createDirectories(headersFile.getParent());
+        Path tempFile = Files.createTempFile(headersFile.getParent(), headersFile.getFileName().toString(), ".tmp");
+        Files.write(tempFile, headers, StandardCharsets.UTF_8);
+        Files.move(tempFile, headersFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Downloads uri to target. Redirects are followed. Failed attempts are retried with exponential backoff, continuing
+     * from the ranges recorded in the journal. The part file and the journal are kept if all attempts fail, so that the
+     * next call continues from there.
+     *
+     * @param uri    uri to download
+     * @param target file to be written. [target].part is used while downloading
+     * @return X-Sdkman headers of all responses, in "name: value" form
+     * @throws IOException if failed to download, or the archive doesn't match the published checksum
+     */
+    @NotNull
+    List<String> download(URI uri, Path target) throws IOException {
+        return download(uri, target, null);
+    }
+
+    /**
+     * @param uri      uri to download
+     * @param target   file to be written. [target].part is used while downloading
+     * @param progress notified of the bytes written, or null
+     * @return X-Sdkman headers of all responses, in "name: value" form
+     * @throws IOException if failed to download, or the archive doesn't match the published checksum
+     */
+    @NotNull
+    List<String> download(URI uri, Path target, @Nullable Progress progress) throws IOException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Path journal = DownloadJournal.of(part);
+        IOException failure = null;
+        for (int attempt = 0; attempt <= retries; attempt++) {
+            if (0 < attempt) {
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt - 1, 16));
+                logger.info("Retrying {} in {} ms ({}/{})", uri, backoff, attempt, retries);
+                sleep(backoff);
+            }
+            try {
+                List<String> headers = new ArrayList<>();
+                String checksum = downloadPart(uri, part, journal, progress, headers);
+                complete(part, journal, target, expected(headers), checksum);
+                return headers;
+            } catch (ChangedException e) {
+                // the ranges on disk are of a different version of the archive
+                logger.info("{} has changed. Restarting the download", uri, e);
+                discard(part, journal);
+                failure = e;
+            } catch (ChecksumMismatchException e) {
+                discard(part, journal);
+                throw e;
+            } catch (PausedException | TooLargeException e) {
+                throw e;
+            } catch (IOException e) {
+                logger.debug("Failed to download {}", uri, e);
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * @param headers X-Sdkman headers of all responses are added
+     * @return checksum of the part file, or null if no checksum is published
+     */
+    @Nullable
+    private String downloadPart(URI uri, Path part, Path journalPath, @Nullable Progress progress,
+                                List<String> headers) throws IOException {
+        URL url = uri.toURL();
+        for (int redirects = 0; ; redirects++) {
+            HttpURLConnection connection = open(url);
+            // probes range support and the length, and follows redirects on the way
+            connection.setRequestProperty("Range", "bytes=0-0");
+            try {
+                int responseCode = connection.getResponseCode();
+                collectHeaders(connection, headers);
+                if (300 <= responseCode && responseCode < 400 && connection.getHeaderField("Location") != null) {
+                    if (redirects == MAX_REDIRECTS) {
+                        throw new IOException("Too many redirects: " + uri);
+                    }
+                    url = new URL(url, connection.getHeaderField("Location"));
+                    continue;
+                }
+                // hashed only if there is something to compare with
+                MessageDigest digest = expected(headers) == null ? null : ArchiveChecksum.newDigest();
+                if (responseCode == 200) {
+                    // ranges not supported. nothing to resume, and the whole body is already on the way
+                    Files.deleteIfExists(journalPath);
+                    long length = connection.getContentLengthLong();
+                    checkLength(length, url);
+                    long written;
+                    try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+                         InputStream in = digest == null ? connection.getInputStream() : new DigestInputStream(connection.getInputStream(), digest)) {
+                        written = transfer(in, channel, 0, new Counter(progress, length, 0));
+                        channel.force(true);
+                    }
+                    if (0 <= length && written != length) {
+                        throw new IOException(String.format("Expected %d bytes but got %d bytes from %s", length, written, url));
+                    }
+                    logger.debug("{} doesn't support range requests. Downloaded {} bytes in a single stream", url, written);
+                    return digest == null ? null : ArchiveChecksum.toHex(digest.digest());
+                } else if (responseCode == 206) {
+                    long length = parseContentRange(connection.getHeaderField("Content-Range"), 0, 0);
+                    checkLength(length, url);
+                    String validator = connection.getHeaderField("ETag");
+                    if (validator == null) {
+                        validator = connection.getHeaderField("Last-Modified");
+                    }
+                    connection.getInputStream().close();
+                    return downloadSegments(url, part, journalPath, length, validator == null ? "" : validator, progress, digest);
+                } else {
+                    throw new IOException(String.format("%s returned %d", url, responseCode));
+                }
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+
+    @Nullable
+    private String downloadSegments(URL url, Path part, Path journalPath, long length, String validator,
+                                    @Nullable Progress progress, @Nullable MessageDigest digest) throws IOException {
+        DownloadJournal journal = DownloadJournal.read(journalPath);
+        boolean resume = journal != null && Files.exists(part)
+                && journal.getLength() == length && journal.getValidator().equals(validator);
+        if (resume) {
+            logger.info("Resuming {} from {} of {} bytes", url, journal.getCompletedBytes(), length);
+        } else {
+            journal = new DownloadJournal(journalPath, length, validator);
+        }
+        // read by the digest
+        try (FileChannel channel = resume ? FileChannel.open(part, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (!resume) {
+                journal.write();
+            }
+            List<long[]> missing = journal.missing();
+            InOrderDigest inOrderDigest = digest == null ? null : new InOrderDigest(digest, channel);
+            if (inOrderDigest != null) {
+                // completed by an earlier attempt
+                long completed = 0;
+                for (long[] range : missing) {
+                    inOrderDigest.written(completed, range[0]);
+                    completed = range[1] + 1;
+                }
+                inOrderDigest.written(completed, length);
+            }
+            long remaining = missing.stream().mapToLong(e -> e[1] - e[0] + 1).sum();
+            int count = (int) Math.max(1, Math.min(segments, (remaining + minSegmentSize - 1) / minSegmentSize));
+            long segmentSize = Math.max(1, (remaining + count - 1) / count);
+            List<long[]> pieces = new ArrayList<>();
+            for (long[] range : missing) {
+                for (long first = range[0]; first <= range[1]; first += segmentSize) {
+                    pieces.add(new long[]{first, Math.min(range[1], first + segmentSize - 1)});
+                }
+            }
+            logger.debug("Downloading {} of {} bytes from {} in {} segment(s)", remaining, length, url, pieces.size());
+            if (!pieces.isEmpty()) {
+                Counter counter = new Counter(progress, length, length - remaining);
+                downloadPieces(url, channel, journal, pieces, count, validator, counter, inOrderDigest);
+            }
+            channel.force(true);
+            if (channel.size() != length) {
+                throw new IOException(String.format("Expected %d bytes but got %d bytes from %s", length, channel.size(), url));
+            }
+            return inOrderDigest == null ? null : inOrderDigest.checksum(length);
+        }
+    }
+
+    private void downloadPieces(URL url, FileChannel channel, DownloadJournal journal, List<long[]> pieces, int threads,
+                                String validator, Counter counter, @Nullable InOrderDigest digest) throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("Shogun Downloader " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (long[] piece : pieces) {
+                futures.add(executorService.submit(() -> {
+                    downloadSegment(url, channel, journal, piece[0], piece[1], validator, counter, digest);
+                    return null;
+                }));
+            }
+            // lets the other segments run to the end so that as much as possible is kept for the retry
+            IOException failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void checkLength(long length, URL url) throws TooLargeException {
+        if (maxLength < length) {
+            throw new TooLargeException(String.format("%s is %d bytes, larger than %d bytes", url, length, maxLength));
+        }
+    }
+
+    private void downloadSegment(URL url, FileChannel channel, DownloadJournal journal, long first, long last,
+                                 String validator, Counter counter, @Nullable InOrderDigest digest) throws IOException {
+        HttpURLConnection connection = open(url);
+        connection.setRequestProperty("Range", "bytes=" + first + "-" + last);
+        if (!validator.isEmpty()) {
+            // the whole archive is sent with 200 if it has changed
+            connection.setRequestProperty("If-Range", validator);
+        }
+        long written = 0;
+        long recorded = 0;
+        try {
+            if (connection.getResponseCode() != 206) {
+                throw new ChangedException(String.format("%s returned %d for bytes %d-%d", url, connection.getResponseCode(), first, last));
+            }
+            if (parseContentRange(connection.getHeaderField("Content-Range"), first, last) != journal.getLength()) {
+                throw new ChangedException(String.format("%s changed while downloading", url));
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            try (InputStream in = connection.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer, 0, (int) Math.min(buffer.length, last - first + 1 - written))) > 0) {
+                    pace(read);
+                    byteBuffer.clear().limit(read);
+                    long position = first + written;
+                    while (byteBuffer.hasRemaining()) {
+                        written += channel.write(byteBuffer, first + written);
+                    }
+                    if (digest != null) {
+                        digest.written(position, buffer, read);
+                    }
+                    counter.add(read);
+                    if (CHECKPOINT_BYTES <= written - recorded) {
+                        record(channel, journal, first + recorded, first + written - 1);
+                        recorded = written;
+                    }
+                }
+            }
+            if (written != last - first + 1) {
+                throw new IOException(String.format("Expected %d bytes but got %d bytes for bytes %d-%d from %s",
+                        last - first + 1, written, first, last, url));
+            }
+        } finally {
+            connection.disconnect();
+            if (recorded < written) {
+                try {
+                    record(channel, journal, first + recorded, first + written - 1);
+                } catch (IOException e) {
+                    logger.debug("Failed to record bytes {}-{} in the journal", first + recorded, first + written - 1, e);
+                }
+            }
+        }
+    }
+
+    private static void record(FileChannel channel, DownloadJournal journal, long first, long last) throws IOException {
+        // the journal never claims bytes not on disk yet
+        channel.force(false);
+        journal.complete(first, last);
+        journal.write();
+    }
+
+    /**
+     * @param headers X-Sdkman headers
+     * @return checksum published in the headers, or null if none
+     */
+    @Nullable
+    private static String expected(List<String> headers) {
+        String prefix = ArchiveChecksum.HEADER.toLowerCase(Locale.ROOT) + ":";
+        return headers.stream().filter(e -> e.toLowerCase(Locale.ROOT).startsWith(prefix))
+                .map(e -> e.substring(prefix.length()).trim()).filter(e -> !e.isEmpty()).findFirst().orElse(null);
+    }
+
+    /**
+     * Checks the checksum computed while downloading against the published one, moves the part file to the target,
+     * and discards the journal.
+     *
+     * @param expected published checksum, or null if none
+     * @param checksum checksum of the part file, or null if not computed
+     */
+    private static void complete(Path part, Path journal, Path target, @Nullable String expected,
+                                 @Nullable String checksum) throws IOException {
+        if (expected != null && !expected.equalsIgnoreCase(checksum)) {
+            throw new ChecksumMismatchException(String.format("Checksum mismatch: expected %s but was %s", expected, checksum));
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (expected != null) {
+            ArchiveChecksum.write(target, checksum);
+        } else {
+            // kept, but never taken as verified
+            logger.info("No checksum published for {}", target);
+        }
+        Files.deleteIfExists(journal);
+    }
+
+    private static void discard(Path part, Path journal) {
+        try {
+            Files.deleteIfExists(journal);
+            Files.deleteIfExists(part);
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}", part, e);
+        }
+    }
+
+    /**
+     * @param value Content-Range header
+     * @param first expected first byte position
+     * @param last  expected last byte position
+     * @return complete length
+     * @throws IOException if the range is not the one requested
+     */
+    static long parseContentRange(@Nullable String value, long first, long last) throws IOException {
+        Matcher matcher = contentRange.matcher(value == null ? "" : value.trim());
+        if (!matcher.matches() || Long.parseLong(matcher.group(1)) != first || Long.parseLong(matcher.group(2)) != last) {
+            throw new IOException(String.format("Expected Content-Range bytes %d-%d but was %s", first, last, value));
+        }
+        return Long.parseLong(matcher.group(3));
+    }
+
+    private long transfer(InputStream in, FileChannel channel, long position, Counter counter) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long written = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            pace(read);
+            byteBuffer.clear().limit(read);
+            while (byteBuffer.hasRemaining()) {
+                written += channel.write(byteBuffer, position + written);
+            }
+            counter.add(read);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IOException("Interrupted");
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Waits for the backoff, stopping as soon as paused so that the caller can release the archive.
+     *
+     * @param millis backoff
+     * @throws PausedException if paused
+     */
+    private void sleep(long millis) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while (0 < (remaining = deadline - System.nanoTime())) {
+            if (paused.getAsBoolean()) {
+                throw new PausedException();
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        if (paused.getAsBoolean()) {
+            throw new PausedException();
+        }
+    }
+
+    /**
+     * Stops if paused, and waits for the throttle.
+     *
+     * @param bytes bytes just read
+     * @throws PausedException if paused
+     */
+    private void pace(int bytes) throws IOException {
+        if (paused.getAsBoolean()) {
+            throw new PausedException();
+        }
+        if (throttle != null) {
+            throttle.acquire(bytes);
+        }
+    }
+
+    private static HttpURLConnection open(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setInstanceFollowRedirects(false);
+        // transparent compression would break the byte ranges
+        connection.setRequestProperty("Accept-Encoding", "identity");
+        return connection;
+    }
+
+    private static void collectHeaders(HttpURLConnection connection, List<String> headers) {
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            if (header.getKey() != null && header.getKey().toLowerCase(Locale.ROOT).startsWith("x-sdkman")) {
+                header.getValue().forEach(e -> headers.add(header.getKey() + ": " + e));
+            }
+        }
+    }
+
+    /**
+     * The archive on the server is not the one the ranges on disk were downloaded from.
+     */
+    private static final class ChangedException extends IOException {
+        ChangedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The download stopped because it was paused. The part file and the journal are kept.
+     */
+    static final class PausedException extends IOException {
+        PausedException() {
+            super("Paused");
+        }
+    }
+
+    private static final class TooLargeException extends IOException {
+        TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class ChecksumMismatchException extends IOException {
+        ChecksumMismatchException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Receives the progress of a download. Called from the downloading threads.
+     */
+    interface Progress {
+        /**
+         * @param written bytes on disk so far, including the bytes resumed from the journal
+         * @param length  length of the archive, or -1 if unknown
+         */
+        void update(long written, long length);
+    }
+
+    /**
+     * @param consumer receives the progress in "12.3%" form, as sdk install prints it
+     * @return progress notifying the consumer each time the percentage grows
+     */
+    static Progress percentage(Consumer<String> consumer) {
+        AtomicInteger last = new AtomicInteger(-1);
+        return (written, length) -> {
+            if (0 < length) {
+                int permille = (int) Math.min(1000, written * 1000 / length);
+                // never goes back when segments report out of order
+                if (last.getAndAccumulate(permille, Math::max) < permille) {
+                    consumer.accept(String.format(Locale.ROOT, "%.1f%%", permille / 10.0));
+                }
+            }
+        };
+    }
+
+    private static final class Counter {
+        @Nullable
+        private final Progress progress;
+        private final long length;
+        private final AtomicLong written;
+
+        Counter(@Nullable Progress progress, long length, long written) {
+            this.progress = progress;
+            this.length = length;
+            this.written = new AtomicLong(written);
+        }
+
+        void add(int bytes) {
+            long total = written.addAndGet(bytes);
+            if (progress != null) {
+                progress.update(total, length);
+            }
+        }
+    }
+
+    /**
+     * Hashes the ranges written by the segments in order.
+     */
+    static final class InOrderDigest {
+        private final MessageDigest digest;
+        private final FileChannel channel;
+        // ranges written ahead of the hashed position. first byte -> end (exclusive)
+        private final NavigableMap<Long, Long> ahead = new TreeMap<>();
+        private long position = 0;
+
+        InOrderDigest(MessageDigest digest, FileChannel channel) {
+            this.digest = digest;
+            this.channel = channel;
+        }
+
+        /**
+         * @param first  position the bytes were written at
+         * @param buffer bytes written
+         * @param length number of bytes written
+         */
+        synchronized void written(long first, byte[] buffer, int length) throws IOException {
+            if (first == position) {
+                digest.update(buffer, 0, length);
+                position += length;
+                catchUp();
+            } else {
+                add(first, first + length);
+            }
+        }
+
+        /**
+         * @param first first byte already on disk
+         * @param end   end of the bytes already on disk (exclusive)
+         */
+        synchronized void written(long first, long end) throws IOException {
+            if (first < end) {
+                add(first, end);
+                catchUp();
+            }
+        }
+
+        private void add(long first, long end) {
+            Map.Entry<Long, Long> previous = ahead.floorEntry(first);
+            if (previous != null && previous.getValue() == first) {
+                ahead.put(previous.getKey(), end);
+            } else {
+                ahead.put(first, end);
+            }
+        }
+
+        private void catchUp() throws IOException {
+            ByteBuffer buffer = null;
+            Map.Entry<Long, Long> next;
+            while ((next = ahead.firstEntry()) != null && next.getKey() <= position) {
+                ahead.pollFirstEntry();
+                while (position < next.getValue()) {
+                    if (buffer == null) {
+                        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                    }
+                    buffer.clear().limit((int) Math.min(BUFFER_SIZE, next.getValue() - position));
+                    int read = channel.read(buffer, position);
+                    if (read <= 0) {
+                        throw new IOException("Unexpected end of the part file at " + position);
+                    }
+                    digest.update(buffer.array(), 0, read);
+                    position += read;
+                }
+            }
+        }
+
+        /**
+         * @param length length of the archive
+         * @return checksum in lower case hex
+         * @throws IOException if not all bytes are hashed
+         */
+        synchronized String checksum(long length) throws IOException {
+            if (position != length) {
+                throw new IOException(String.format("Hashed %d of %d bytes", position, length));
+            }
+            return ArchiveChecksum.toHex(digest.digest());
+        }
+    }
+
+    /**
+     * Limits the rate of the downloads sharing it.
+     */
+    static final class Throttle {
+        private final long bytesPerSecond;
+        // time the bytes acquired so far are paid off
+        private long nextNanos = System.nanoTime();
+
+        Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = Math.max(1, bytesPerSecond);
+        }
+
+        /**
+         * Waits until the bytes can pass at the rate.
+         *
+         * @param bytes bytes
+         * @throws InterruptedIOException if interrupted while waiting
+         */
+        void acquire(int bytes) throws InterruptedIOException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                nextNanos = Math.max(nextNanos, now) + bytes * 1_000_000_000L / bytesPerSecond;
+                waitNanos = nextNanos - now;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+}
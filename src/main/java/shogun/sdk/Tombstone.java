@@ -0,0 +1,139 @@
+package shogun.sdk;
+
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Removes large directory trees without blocking the caller.<br>
+ * The tree is renamed into a graveyard directory on the same file system first so that it disappears at once, and is
+ * deleted in the background afterwards. Trees left in the graveyard by an interrupted deletion are deleted by
+ * {@link #purge(Path)}.
+ */
+final class Tombstone {
+    private final static Logger logger = LoggerFactory.getLogger();
+
+    private Tombstone() {
+    }
+
+    /**
+     * Moves the specified directory into the graveyard and deletes it in the background.
+     *
+     * @param directory directory to be deleted
+     * @param graveyard directory to keep trees to be deleted
+     * @throws IOException if the directory can't be moved atomically
+     */
+    static void bury(Path directory, Path graveyard) throws IOException {
+        Files.createDirectories(graveyard);
+        Path tombstone = graveyard.resolve(directory.getFileName() + "-" + System.nanoTime());
+        Files.move(directory, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Moved {} to {}", directory, tombstone);
+        startDeletion(List.of(tombstone));
+    }
+
+    /**
+     * Deletes trees left in the graveyard in the background.
+     *
+     * @param graveyard directory to keep trees to be deleted
+     */
+    static void purge(Path graveyard) {
+        if (!Files.isDirectory(graveyard)) {
+            return;
+        }
+        List<Path> tombstones = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(graveyard)) {
+            stream.forEach(tombstones::add);
+        } catch (IOException e) {
+            logger.warn("Failed to list {}", graveyard, e);
+        }
+        if (!tombstones.isEmpty()) {
+            logger.debug("Resuming deletion of {}", tombstones);
+            startDeletion(tombstones);
+        }
+    }
+
+    private static void startDeletion(List<Path> tombstones) {
+        Thread thread = new Thread(() -> {
+            for (Path tombstone : tombstones) {
+                try {
+                    deleteRecursively(tombstone);
+                    logger.debug("Deleted {}", tombstone);
+                } catch (IOException | UncheckedIOException e) {
+                    logger.warn("Failed to delete {}", tombstone, e);
+                }
+            }
+        });
+        thread.setName("Shogun Tombstone Remover");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Deletes the tree in parallel. Symbolic links are deleted, not followed.
+     *
+     * @param root root of the tree
+     * @throws IOException when failed to delete
+     */
+    static void deleteRecursively(Path root) throws IOException {
+        if (!Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS)) {
+            Files.deleteIfExists(root);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invoke(new DeleteAction(root));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static class DeleteAction extends RecursiveAction {
+        private final Path directory;
+
+        DeleteAction(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            List<DeleteAction> subdirectories = new ArrayList<>();
+            try {
+                // walk one level. subdirectories are handed over to other workers
+                Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        if (attrs.isDirectory() && !file.equals(directory)) {
+                            subdirectories.add(new DeleteAction(file));
+                        } else {
+                            // purge() and a deletion started by bury() may race on the same tree
+                            Files.deleteIfExists(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+                invokeAll(subdirectories);
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the versions rendered in the menu so that the next launch can show the tray before SDKMAN! responds.
+ */
+public class VersionCache {
+    private final static Logger logger = LoggerFactory.getLogger();
+    private static final String HEADER = "# Shogun version cache 1";
+    private final Path file;
+
+    public VersionCache() {
+        this(Platform.getShogunDir().resolve("version-cache.txt"));
+    }
+
+    VersionCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param sdkManVersion label of the SDKMAN! version menu
+     * @param versions      versions per candidate, in the order rendered
+     */
+    public void save(String sdkManVersion, Map<String, List<Version>> versions) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), "version-cache", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                writer.write("S\t" + sdkManVersion);
+                writer.newLine();
+                for (Map.Entry<String, List<Version>> entry : versions.entrySet()) {
+                    writer.write("C\t" + entry.getKey());
+                    writer.newLine();
+                    for (Version version : entry.getValue()) {
+                        writer.write(toLine(version));
+                        writer.newLine();
+                    }
+                }
+            }
+            // never leave a half written cache
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Saved version cache: {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to save version cache: {}", file, e);
+        }
+    }
+
+    /**
+     * @return cached versions, or empty snapshot if no valid cache exists
+     */
+    @NotNull
+    public Snapshot load() {
+        String sdkManVersion = null;
+        Map<String, List<Version>> versions = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return new Snapshot(null, versions);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                logger.debug("Ignoring version cache in unknown format: {}", file);
+                return new Snapshot(null, new LinkedHashMap<>());
+            }
+            List<Version> currentList = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] split = line.split("\t", -1);
+                switch (split[0]) {
+                    case "S":
+                        sdkManVersion = split[1];
+                        break;
+                    case "C":
+                        currentList = new ArrayList<>();
+                        versions.put(split[1], currentList);
+                        break;
+                    case "V":
+                        if (currentList != null) {
+                            currentList.add(fromLine(split));
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unexpected line: " + line);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load version cache: {}", file, e);
+            return new Snapshot(null, new LinkedHashMap<>());
+        }
+        return new Snapshot(sdkManVersion, versions);
+    }
+
+    private static String toLine(Version version) {
+        String kind = "v";
+        String vendor = "";
+        String dist = "";
+        String path = "";
+        if (version instanceof JavaVersion) {
+            kind = version instanceof NotRegisteredVersion ? "d" : "j";
+            vendor = ((JavaVersion) version).getVendor();
+            dist = ((JavaVersion) version).getDist();
+            if (version.isDetected()) {
+                path = version.getPath();
+            }
+        }
+        return String.join("\t", "V", kind, version.getCandidate(), version.getVersion(), version.getStatus(),
+                vendor, dist, version.getIdentifier(), path);
+    }
+
+    private static Version fromLine(String[] split) {
+        String kind = split[1];
+        String candidate = split[2];
+        String versionStr = split[3];
+        String status = split[4];
+        String vendor = split[5];
+        String dist = split[6];
+        String identifier = split[7];
+        switch (kind) {
+            case "j":
+                return new JavaVersion(candidate, vendor, false, versionStr, dist, status, identifier);
+            case "d":
+                return new NotRegisteredVersion(vendor, versionStr, dist, identifier, new File(split[8]));
+            default:
+                return new Version(candidate, false, versionStr, status);
+        }
+    }
+
+    public static class Snapshot {
+        private final String sdkManVersion;
+        private final Map<String, List<Version>> versions;
+
+        Snapshot(String sdkManVersion, Map<String, List<Version>> versions) {
+            this.sdkManVersion = sdkManVersion;
+            this.versions = Collections.unmodifiableMap(versions);
+        }
+
+        /**
+         * @return label of the SDKMAN! version menu, or null if not cached
+         */
+        public String getSdkManVersion() {
+            return sdkManVersion;
+        }
+
+        /**
+         * @return versions per candidate, in the order rendered last time
+         */
+        public Map<String, List<Version>> getVersions() {
+            return versions;
+        }
+
+        public boolean isEmpty() {
+            return versions.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the versions of all candidates in a compact form.<br>
+ * Strings repeated across versions and candidates (status, vendor, dist, ...) are stored once in a shared string
+ * table, and each version is packed into a row of int indexes into the table. Lists without Java versions need two
+ * ints per version. {@link Version} objects are created on demand by the list views returned from
+ * {@link #put(String, List)} and {@link #get(String)}, and are discarded once the caller is done with them.<br>
+ * The table is rebuilt from the stored versions on each put, so strings of replaced versions don't accumulate. Views
+ * returned earlier keep the table they were created with.
+ */
+public final class VersionCatalogue {
+    private static final int KIND_VERSION = 0;
+    private static final int KIND_JAVA = 1;
+    private static final int KIND_NOT_REGISTERED = 2;
+    private static final int KIND_MASK = 3;
+    private static final int USE = 4;
+    // the status index is stored in the same int as the kind and the use flag
+    private static final int STATUS_SHIFT = 3;
+
+    // kind | use | status, version
+    private static final int STRIDE = 2;
+    // kind | use | status, version, vendor, dist, identifier, path
+    private static final int JAVA_STRIDE = 6;
+    private static final int NONE = -1;
+
+    private final Map<String, Versions> catalogue = new ConcurrentHashMap<>();
+    private volatile StringTable table = new StringTable();
+
+    /**
+     * Replaces the versions of the candidate.
+     *
+     * @param candidate candidate
+     * @param versions  versions in the order to be returned
+     * @return view of the stored versions
+     */
+    @NotNull
+    public synchronized List<Version> put(String candidate, List<Version> versions) {
+        StringTable newTable = new StringTable();
+        Map<String, Versions> rebuilt = new HashMap<>();
+        for (Versions other : catalogue.values()) {
+            if (!other.candidate.equals(candidate)) {
+                rebuilt.put(other.candidate, other.copyTo(newTable));
+            }
+        }
+        int stride = versions.stream().anyMatch(e -> e instanceof JavaVersion) ? JAVA_STRIDE : STRIDE;
+        int[] rows = new int[versions.size() * stride];
+        int offset = 0;
+        for (Version version : versions) {
+            int kind = KIND_VERSION;
+            if (version instanceof JavaVersion) {
+                kind = version instanceof NotRegisteredVersion ? KIND_NOT_REGISTERED : KIND_JAVA;
+            }
+            rows[offset] = kind | (version.use ? USE : 0) | (newTable.index(version.getStatus()) + 1) << STATUS_SHIFT;
+            rows[offset + 1] = newTable.index(version.getVersion());
+            if (stride == JAVA_STRIDE) {
+                rows[offset + 2] = kind == KIND_VERSION ? NONE : newTable.index(((JavaVersion) version).getVendor());
+                rows[offset + 3] = kind == KIND_VERSION ? NONE : newTable.index(((JavaVersion) version).getDist());
+                rows[offset + 4] = kind == KIND_VERSION ? NONE : newTable.index(version.getIdentifier());
+                rows[offset + 5] = kind == KIND_NOT_REGISTERED ? newTable.index(version.getPath()) : NONE;
+            }
+            offset += stride;
+        }
+        Versions view = new Versions(newTable, newTable.string(newTable.index(candidate)), rows, stride);
+        rebuilt.put(view.candidate, view);
+        catalogue.putAll(rebuilt);
+        table = newTable;
+        return view;
+    }
+
+    /**
+     * @param candidate candidate
+     * @return view of the stored versions, or null if not stored
+     */
+    public List<Version> get(String candidate) {
+        return catalogue.get(candidate);
+    }
+
+    /**
+     * @param string string
+     * @return the instance shared in the current string table, or the string itself if not stored
+     */
+    public String intern(String string) {
+        StringTable current = table;
+        int index = current.find(string);
+        return index == NONE ? string : current.string(index);
+    }
+
+    /**
+     * @return number of distinct strings stored
+     */
+    int getStringCount() {
+        return table.count;
+    }
+
+    /**
+     * Open addressing hash table of strings. Not modified once a view refers to it.
+     */
+    private static final class StringTable {
+        private String[] strings = new String[64];
+        private int count = 0;
+        // (index in strings + 1). 0 means empty
+        private int[] slots = new int[128];
+
+        int find(String string) {
+            if (string == null) {
+                return NONE;
+            }
+            return slots[slot(string)] - 1;
+        }
+
+        int index(String string) {
+            if (string == null) {
+                return NONE;
+            }
+            int slot = slot(string);
+            if (slots[slot] != 0) {
+                return slots[slot] - 1;
+            }
+            if (count == strings.length) {
+                strings = Arrays.copyOf(strings, strings.length * 2);
+            }
+            strings[count] = string;
+            slots[slot] = ++count;
+            // keep the load factor under 0.5
+            if (slots.length < count * 2) {
+                rehash();
+            }
+            return count - 1;
+        }
+
+        // slot of the string, or the empty slot to store it in
+        private int slot(String string) {
+            int mask = slots.length - 1;
+            int slot = spread(string.hashCode()) & mask;
+            while (slots[slot] != 0 && !strings[slots[slot] - 1].equals(string)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash() {
+            int[] newSlots = new int[slots.length * 2];
+            int mask = newSlots.length - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = spread(strings[i].hashCode()) & mask;
+                while (newSlots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newSlots[slot] = i + 1;
+            }
+            slots = newSlots;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        String string(int index) {
+            return index == NONE ? null : strings[index];
+        }
+    }
+
+    private static final class Versions extends AbstractList<Version> implements RandomAccess {
+        private final StringTable table;
+        private final String candidate;
+        private final int[] rows;
+        private final int stride;
+
+        Versions(StringTable table, String candidate, int[] rows, int stride) {
+            this.table = table;
+            this.candidate = candidate;
+            this.rows = rows;
+            this.stride = stride;
+        }
+
+        /**
+         * @param newTable table to be referred
+         * @return the same versions referring to the new table
+         */
+        Versions copyTo(StringTable newTable) {
+            int[] newRows = new int[rows.length];
+            for (int offset = 0; offset < rows.length; offset += stride) {
+                int status = newTable.index(table.string((rows[offset] >>> STATUS_SHIFT) - 1));
+                newRows[offset] = (rows[offset] & (KIND_MASK | USE)) | (status + 1) << STATUS_SHIFT;
+                for (int i = 1; i < stride; i++) {
+                    newRows[offset + i] = newTable.index(table.string(rows[offset + i]));
+                }
+            }
+            return new Versions(newTable, newTable.string(newTable.index(candidate)), newRows, stride);
+        }
+
+        @Override
+        public Version get(int index) {
+            if (index < 0 || size() <= index) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int offset = index * stride;
+            int kind = rows[offset] & KIND_MASK;
+            boolean use = (rows[offset] & USE) != 0;
+            String status = table.string((rows[offset] >>> STATUS_SHIFT) - 1);
+            String version = table.string(rows[offset + 1]);
+            switch (kind) {
+                case KIND_JAVA:
+                    return new JavaVersion(candidate, table.string(rows[offset + 2]), use, version,
+                            table.string(rows[offset + 3]), status, table.string(rows[offset + 4]));
+                case KIND_NOT_REGISTERED:
+                    return new NotRegisteredVersion(table.string(rows[offset + 2]), version, table.string(rows[offset + 3]),
+                            table.string(rows[offset + 4]), new File(table.string(rows[offset + 5])));
+                default:
+                    return new Version(candidate, use, version, status);
+            }
+        }
+
+        @Override
+        public int size() {
+            return rows.length / stride;
+        }
+    }
+}
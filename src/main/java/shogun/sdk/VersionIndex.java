@@ -0,0 +1,288 @@
+package shogun.sdk;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Versions of a candidate sorted in natural order, so that 1.10 comes after 1.9.<br>
+ * The sort key of each version is computed once when the index is built. Versions are kept in the whole index, and
+ * in buckets per vendor (dist or vendor name of Java versions, case insensitive) and per major version, each sorted by
+ * the key. Latest, range and prefix queries are answered in O(log n).
+ */
+public final class VersionIndex {
+    // separates the identifier making keys unique. sorts below everything else
+    private static final char UNIQUE = '\u0000';
+    // a separator followed by letters marks a pre-release. sorts below the end, so that 8.5-rc-1 &lt; 8.5 and
+    // 14.ea.3 &lt; 14 &lt; 14.0.1
+    private static final char PRE_RELEASE = '\u0001';
+    // end of the version. sorts below separators, so that 17 &lt; 17.0 &lt; 17.0.1 &lt; 170
+    private static final char END = '\u0002';
+    private static final char SEPARATOR = '\u0003';
+    // letters not following a separator
+    private static final char LETTERS = '\u0004';
+    // numbers are encoded as (NUMBER + number of digits) followed by digits, so that they compare numerically
+    private static final char NUMBER = '\u0010';
+
+    private final NavigableMap<String, Version> all = new TreeMap<>();
+    private final Map<String, NavigableMap<String, Version>> byVendor = new LinkedHashMap<>();
+    private final Map<String, NavigableMap<String, Version>> byVendorName = new LinkedHashMap<>();
+    private final Map<String, NavigableMap<String, Version>> byMajor = new LinkedHashMap<>();
+
+    public VersionIndex(List<Version> versions) {
+        for (Version version : versions) {
+            String sortKey = sortKey(version.getVersion());
+            String key = sortKey + UNIQUE + version.getIdentifier();
+            all.put(key, version);
+            if (version instanceof JavaVersion) {
+                JavaVersion javaVersion = (JavaVersion) version;
+                bucket(byVendor, vendorKey(javaVersion.getDist())).put(key, version);
+                bucket(byVendorName, vendorKey(javaVersion.getVendor())).put(key, version);
+            }
+            bucket(byMajor, major(version.getVersion())).put(key, version);
+        }
+    }
+
+    private static NavigableMap<String, Version> bucket(Map<String, NavigableMap<String, Version>> buckets, String key) {
+        return buckets.computeIfAbsent(key, e -> new TreeMap<>());
+    }
+
+    /**
+     * @param version version string
+     * @return key comparing numbers numerically, separated by ., -, + or _. pre-releases such as 8.5-rc-1 or 21.ea.35
+     * sort below the release
+     */
+    static String sortKey(String version) {
+        return prefixKey(version) + END;
+    }
+
+    /**
+     * @param version version string
+     * @return sort key without the end, which the keys of the version, its pre-releases and the versions continuing
+     * after a separator start with
+     */
+    private static String prefixKey(String version) {
+        if (version == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder(version.length() + 8);
+        int i = 0;
+        while (i < version.length()) {
+            char c = version.charAt(i);
+            if (Character.isDigit(c)) {
+                int start = i;
+                while (i < version.length() && Character.isDigit(version.charAt(i))) {
+                    i++;
+                }
+                // leading zeros don't count
+                int nonZero = start;
+                while (nonZero < i - 1 && version.charAt(nonZero) == '0') {
+                    nonZero++;
+                }
+                key.append((char) (NUMBER + (i - nonZero))).append(version, nonZero, i);
+            } else if (c == '.' || c == '-' || c == '+' || c == '_') {
+                i++;
+                key.append(i < version.length() && isLetter(version.charAt(i)) ? PRE_RELEASE : SEPARATOR);
+            } else {
+                key.append(LETTERS);
+                while (i < version.length() && isLetter(version.charAt(i))) {
+                    key.append(Character.toLowerCase(version.charAt(i)));
+                    i++;
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isLetter(char c) {
+        return !Character.isDigit(c) && c != '.' && c != '-' && c != '+' && c != '_';
+    }
+
+    private static String vendorKey(String vendor) {
+        return vendor == null ? "" : vendor.toLowerCase(Locale.ENGLISH);
+    }
+
+    static String major(String version) {
+        if (version == null) {
+            return "";
+        }
+        int end = 0;
+        while (end < version.length() && Character.isDigit(version.charAt(end))) {
+            end++;
+        }
+        return version.substring(0, end);
+    }
+
+    /**
+     * @return all versions in natural order, oldest first
+     */
+    @NotNull
+    public List<Version> sorted() {
+        return new ArrayList<>(all.values());
+    }
+
+    /**
+     * @return all versions, newest first
+     */
+    @NotNull
+    public List<Version> newestFirst() {
+        return new ArrayList<>(all.descendingMap().values());
+    }
+
+    /**
+     * @return versions grouped by dist in the order the dists first appeared, newest first in each dist. newest first
+     * if no Java versions are indexed
+     */
+    @NotNull
+    public List<Version> newestFirstByVendor() {
+        if (byVendor.isEmpty()) {
+            return newestFirst();
+        }
+        List<Version> versions = new ArrayList<>(all.size());
+        byVendor.values().forEach(e -> versions.addAll(e.descendingMap().values()));
+        return versions;
+    }
+
+    /**
+     * @return dists of Java versions in the order they first appeared
+     */
+    @NotNull
+    public List<String> getVendors() {
+        return List.copyOf(byVendor.keySet());
+    }
+
+    /**
+     * @return majors in the order they first appeared
+     */
+    @NotNull
+    public List<String> getMajors() {
+        return List.copyOf(byMajor.keySet());
+    }
+
+    /**
+     * @return the newest version
+     */
+    public Optional<Version> latest() {
+        return last(all);
+    }
+
+    /**
+     * @param prefix version prefix such as "17" or "17.0". matches whole numbers only, so "1" doesn't match "17"
+     * @return the newest version starting with the prefix
+     */
+    public Optional<Version> latest(String prefix) {
+        return last(prefixOf(all, prefix));
+    }
+
+    /**
+     * @param vendor dist such as "tem" or vendor name such as "Temurin"
+     * @param prefix version prefix such as "17"
+     * @return the newest version of the vendor starting with the prefix
+     */
+    public Optional<Version> latest(String vendor, String prefix) {
+        return last(prefixOf(byVendor(vendor), prefix));
+    }
+
+    /**
+     * @return the newest version of each major, newest major first
+     */
+    @NotNull
+    public List<Version> latestPerMajor() {
+        List<Version> latest = new ArrayList<>();
+        majorsNewestFirst().forEach(major -> last(byMajor.get(major)).ifPresent(latest::add));
+        return latest;
+    }
+
+    /**
+     * @param vendor dist such as "tem" or vendor name such as "Temurin"
+     * @return the newest version of each major of the vendor, newest major first
+     */
+    @NotNull
+    public List<Version> latestPerMajor(String vendor) {
+        NavigableMap<String, Version> bucket = byVendor(vendor);
+        List<Version> latest = new ArrayList<>();
+        majorsNewestFirst().forEach(major -> last(prefixOf(bucket, major)).ifPresent(latest::add));
+        return latest;
+    }
+
+    private List<String> majorsNewestFirst() {
+        List<String> majors = new ArrayList<>(byMajor.keySet());
+        majors.sort(Comparator.comparing(VersionIndex::sortKey).reversed());
+        return majors;
+    }
+
+    /**
+     * @param prefix version prefix such as "8" or "8.1"
+     * @return versions starting with the prefix, oldest first
+     */
+    @NotNull
+    public List<Version> prefix(String prefix) {
+        return new ArrayList<>(prefixOf(all, prefix).values());
+    }
+
+    /**
+     * @param vendor dist such as "tem" or vendor name such as "Temurin"
+     * @return versions of the vendor, newest first
+     */
+    @NotNull
+    public List<Version> ofVendor(String vendor) {
+        return new ArrayList<>(byVendor(vendor).descendingMap().values());
+    }
+
+    /**
+     * @param fromInclusive lowest version, or null for no lower bound
+     * @param toExclusive   highest version, exclusive, or null for no upper bound
+     * @return versions in the range, oldest first
+     */
+    @NotNull
+    public List<Version> range(String fromInclusive, String toExclusive) {
+        return new ArrayList<>(rangeOf(all, fromInclusive, toExclusive).values());
+    }
+
+    /**
+     * @param vendor        dist such as "tem" or vendor name such as "Temurin"
+     * @param fromInclusive lowest version, or null for no lower bound
+     * @param toExclusive   highest version, exclusive, or null for no upper bound
+     * @return versions of the vendor in the range, oldest first
+     */
+    @NotNull
+    public List<Version> range(String vendor, String fromInclusive, String toExclusive) {
+        return new ArrayList<>(rangeOf(byVendor(vendor), fromInclusive, toExclusive).values());
+    }
+
+    private NavigableMap<String, Version> byVendor(String vendor) {
+        NavigableMap<String, Version> bucket = byVendor.get(vendorKey(vendor));
+        return bucket != null ? bucket : byVendorName.getOrDefault(vendorKey(vendor), Collections.emptyNavigableMap());
+    }
+
+    private static NavigableMap<String, Version> prefixOf(NavigableMap<String, Version> bucket, String prefix) {
+        String key = prefixKey(prefix);
+        // pre-releases, the version itself, and versions continuing after a separator
+        return bucket.subMap(key + PRE_RELEASE, true, key + (char) (SEPARATOR + 1), false);
+    }
+
+    // pre-releases of the bounds count as the bounds, so that 13 - 15 includes 13.ea.27 but not 15.ea.2
+    private static NavigableMap<String, Version> rangeOf(NavigableMap<String, Version> bucket, String fromInclusive, String toExclusive) {
+        NavigableMap<String, Version> range = bucket;
+        if (fromInclusive != null) {
+            range = range.tailMap(prefixKey(fromInclusive), true);
+        }
+        if (toExclusive != null) {
+            range = range.headMap(prefixKey(toExclusive), false);
+        }
+        return range;
+    }
+
+    private static Optional<Version> last(NavigableMap<String, Version> bucket) {
+        return bucket.isEmpty() ? Optional.empty() : Optional.of(bucket.lastEntry().getValue());
+    }
+}
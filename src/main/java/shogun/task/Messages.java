@@ -15,6 +15,7 @@ enum Messages {
     copyPath,
     refresh,
     flushArchives,
+    pausePrefetch,
     availableCandidates,
     notRegistered,
     register,
@@ -25,5 +26,18 @@ enum Messages {
     showInExplorer,
     unregister,
     installNativeImage,
-    updateAvailable
+    updateAvailable,
+    registerAll,
+    confirmRegisterAllMessage,
+    confirmRegisterAllTitle,
+    registerAllResultMessage,
+    busyMessage,
+    busyTitle,
+    alreadyRunning,
+    benchmarkStartup,
+    benchmarkStartupTitle,
+    confirmBenchmarkStartupMessage,
+    generateCDSArchive,
+    generateAllCDSArchives,
+    generatingCDSArchive
 }
@@ -0,0 +1,104 @@
+package shogun.task;
+
+import org.slf4j.Logger;
+import shogun.logging.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Refreshes in the background at an adaptive interval.<br>
+ * The interval is reset to the minimum when the refresh finds changes, and doubled up to the maximum when nothing
+ * changed or SDKMAN! is offline. ±10% jitter is added so that instances don't hit the SDKMAN! API at the same time.
+ * Only the next run is scheduled, so the scheduler thread stays parked in between.
+ */
+class RefreshScheduler {
+    private final static Logger logger = LoggerFactory.getLogger();
+
+    enum Outcome {
+        CHANGED, UNCHANGED, OFFLINE
+    }
+
+    private final Supplier<Outcome> refresh;
+    private final BooleanSupplier busy;
+    private final long minMillis;
+    private final long maxMillis;
+    private final long busyRetryMillis;
+    private final ScheduledThreadPoolExecutor executor;
+    // accessed only from the scheduler thread
+    private long intervalMillis;
+
+    /**
+     * @param refresh    refreshes and reports whether anything changed
+     * @param busy       true while user operations are running
+     * @param minimum    minimum interval
+     * @param maximum    maximum interval
+     * @param busyRetry  delay to check again when user operations are running
+     */
+    RefreshScheduler(Supplier<Outcome> refresh, BooleanSupplier busy, Duration minimum, Duration maximum, Duration busyRetry) {
+        if (minimum.isNegative() || minimum.isZero() || maximum.compareTo(minimum) < 0) {
+            throw new IllegalArgumentException(String.format("invalid interval: %s - %s", minimum, maximum));
+        }
+        this.refresh = refresh;
+        this.busy = busy;
+        this.minMillis = minimum.toMillis();
+        this.maxMillis = maximum.toMillis();
+        this.busyRetryMillis = busyRetry.toMillis();
+        this.intervalMillis = minMillis;
+        executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("Shogun Refresh Scheduler");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    void start() {
+        schedule(withJitter(intervalMillis));
+    }
+
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(long delayMillis) {
+        logger.debug("Next refresh in {} ms", delayMillis);
+        executor.schedule(this::run, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        if (busy.getAsBoolean()) {
+            logger.debug("User operation in progress. Postponing refresh.");
+            schedule(busyRetryMillis);
+            return;
+        }
+        Outcome outcome;
+        try {
+            outcome = refresh.get();
+        } catch (RuntimeException e) {
+            logger.warn("Background refresh failed", e);
+            outcome = Outcome.OFFLINE;
+        }
+        intervalMillis = nextInterval(intervalMillis, outcome, minMillis, maxMillis);
+        logger.debug("Background refresh: {}", outcome);
+        schedule(withJitter(intervalMillis));
+    }
+
+    static long nextInterval(long currentMillis, Outcome outcome, long minMillis, long maxMillis) {
+        if (outcome == Outcome.CHANGED) {
+            return minMillis;
+        }
+        return Math.min(maxMillis, currentMillis * 2);
+    }
+
+    static long withJitter(long millis) {
+        long jitter = millis / 10;
+        return millis - jitter + ThreadLocalRandom.current().nextLong(jitter * 2 + 1);
+    }
+}
@@ -3,6 +3,9 @@ package shogun.task;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import shogun.logging.LoggerFactory;
+import shogun.metrics.EventQueueTaskEvent;
+import shogun.metrics.MenuRefreshEvent;
+import shogun.metrics.Metrics;
 import shogun.sdk.*;
 
 import javax.swing.*;
@@ -11,14 +14,18 @@ import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static javax.swing.JOptionPane.INFORMATION_MESSAGE;
 import static javax.swing.JOptionPane.QUESTION_MESSAGE;
+import static javax.swing.JOptionPane.WARNING_MESSAGE;
 
 public class TaskTray {
     private final static Logger logger = LoggerFactory.getLogger();
@@ -39,16 +46,11 @@ public class TaskTray {
     private final MenuItem quitMenu = new MenuItem(getMessage(Messages.quit));
 
     private final Frame thisFrameMakesDialogsAlwaysOnTop = new Frame();
-    private final List<Image> animatedDuke;
+    private final Image dukeImage = loadDukeImage(0);
     private final DukeThread duke;
+    private final VersionCache versionCache = new VersionCache();
 
     public TaskTray() {
-        animatedDuke = new ArrayList<>();
-        logger.debug("Loading Duke images.");
-        for (int i = 0; i < 12; i++) {
-            Image image = Toolkit.getDefaultToolkit().createImage(ClassLoader.getSystemResource("images/duke-64x64-anim" + i + ".png"));
-            animatedDuke.add(image);
-        }
         duke = new DukeThread();
         flushArchivesMenu.addActionListener(e -> flushArchivesClicked());
         shogunVersionMenu.setEnabled(false);
@@ -71,36 +73,84 @@ public class TaskTray {
             runnable.run();
         } else {
             duke.startRoll();
+            long queued = System.nanoTime();
             EventQueue.invokeLater(() -> {
+                EventQueueTaskEvent event = new EventQueueTaskEvent();
+                event.queueTime = System.nanoTime() - queued;
+                event.begin();
                 try {
                     runnable.run();
                     duke.stopRoll();
                 } catch (Exception e) {
                     logger.error("Exception in execute", e);
+                } finally {
+                    event.commit();
                 }
                     }
             );
         }
     }
 
+    // number of tasks submitted to executorService and not finished yet
+    private final AtomicInteger runningTasks = new AtomicInteger();
+
     private void execute(Runnable runnable) {
         if (Thread.currentThread().getName().startsWith(EXECUTE_THREAD_NAME)) {
             // already in execute thread
             runnable.run();
         } else {
             duke.startRoll();
+            runningTasks.incrementAndGet();
             executorService.execute(() -> {
                 try {
                     runnable.run();
-                    duke.stopRoll();
+                } catch (SDKBusyException e) {
+                    showBusyDialog(e);
                 } catch (Exception e) {
                     logger.error("Exception in execute", e);
+                } finally {
+                    runningTasks.decrementAndGet();
+                    duke.stopRoll();
                 }
                     }
             );
         }
     }
 
+    private void showBusyDialog(SDKBusyException e) {
+        logger.warn("Busy: {}", e.getResource(), e);
+        invokeLater(() -> JOptionPane.showMessageDialog(thisFrameMakesDialogsAlwaysOnTop,
+                getMessage(Messages.busyMessage, e.getResource()), getMessage(Messages.busyTitle),
+                WARNING_MESSAGE, getDialogIcon()));
+    }
+
+    /**
+     * Runs a task taking minutes outside the execute thread so that installs etc. won't be blocked. The task counts as
+     * running so that background refreshes and prefetches hold off meanwhile.
+     *
+     * @param name     thread name
+     * @param runnable task
+     */
+    private void runInBackground(String name, Runnable runnable) {
+        duke.startRoll();
+        runningTasks.incrementAndGet();
+        Thread thread = new Thread(() -> {
+            try {
+                runnable.run();
+            } catch (SDKBusyException e) {
+                showBusyDialog(e);
+            } catch (RuntimeException e) {
+                logger.error("Exception in {}", name, e);
+            } finally {
+                runningTasks.decrementAndGet();
+                duke.stopRoll();
+            }
+        });
+        thread.setName(name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     private void refreshMenuClicked() {
         execute(this::initializeMenuItems);
     }
@@ -136,8 +186,13 @@ public class TaskTray {
         dukeLatch.await(60, TimeUnit.SECONDS);
     }
 
+    private static Image loadDukeImage(int index) {
+        return Toolkit.getDefaultToolkit().createImage(ClassLoader.getSystemResource("images/duke-64x64-anim" + index + ".png"));
+    }
+
     class DukeThread extends Thread {
         final AtomicInteger integer = new AtomicInteger();
+        private final List<Image> animatedDuke = new ArrayList<>();
 
 
         DukeThread() {
@@ -164,6 +219,12 @@ public class TaskTray {
         }
 
         public void run() {
+            // animation frames are not needed until the tray icon is painted
+            logger.debug("Loading Duke images.");
+            animatedDuke.add(dukeImage);
+            for (int i = 1; i < 12; i++) {
+                animatedDuke.add(loadDukeImage(i));
+            }
             //noinspection InfiniteLoopStatement
             while (true) {
                 while (0 < integer.get()) {
@@ -178,7 +239,7 @@ public class TaskTray {
                         }
                     }
                 }
-                EventQueue.invokeLater(() -> icon.setImage(animatedDuke.get(0)));
+                EventQueue.invokeLater(() -> icon.setImage(dukeImage));
                 try {
                     synchronized (this) {
                         wait();
@@ -189,7 +250,15 @@ public class TaskTray {
         }
     }
 
-    private final ImageIcon dialogIcon = new ImageIcon(Toolkit.getDefaultToolkit().createImage(ClassLoader.getSystemResource("images/duke-128x128.png")));
+    private ImageIcon dialogIcon;
+
+    private synchronized ImageIcon getDialogIcon() {
+        // ImageIcon blocks until the image is loaded. load on demand
+        if (dialogIcon == null) {
+            dialogIcon = new ImageIcon(Toolkit.getDefaultToolkit().createImage(ClassLoader.getSystemResource("images/duke-128x128.png")));
+        }
+        return dialogIcon;
+    }
 
     private final String EXECUTE_THREAD_NAME = "Shogun Execute Thread";
     private final ExecutorService executorService = Executors.newFixedThreadPool(1,
@@ -212,28 +281,179 @@ public class TaskTray {
         EventQueue.invokeLater(() -> {
             logger.debug("Preparing task tray.");
             tray = SystemTray.getSystemTray();
-            icon = new TrayIcon(animatedDuke.get(0), "Shogun", popup);
+            icon = new TrayIcon(dukeImage, "Shogun", popup);
             icon.setImageAutoSize(true);
             try {
                 tray.add(icon);
             } catch (AWTException e) {
                 quit();
             }
+            duke.start();
+            if ("tray".equals(EXIT_AFTER_STARTUP)) {
+                exitAfterStartup();
+            }
         });
-        duke.start();
+        // render the menu from the last launch first, then reconcile with the live state
+        execute(this::restoreMenuItems);
         execute(this::initializeMenuItems);
+        execute(sdk::purgeUninstalledVersions);
+        if ("menu".equals(EXIT_AFTER_STARTUP)) {
+            execute(this::exitAfterStartup);
+        }
+        if (refreshScheduler != null) {
+            refreshScheduler.start();
+        }
+        archiveMirror = ArchiveMirror.startIfConfigured();
+        if (prefetcher != null) {
+            prefetcher.start();
+        }
+        execute(Metrics::publish);
+    }
+
+    private ArchiveMirror archiveMirror;
+
+    private final VersionCatalogue versionCatalogue = new VersionCatalogue();
+
+    /**
+     * Minimum interval of the background refresh in minutes. 0 disables the background refresh.
+     */
+    private static final long REFRESH_INTERVAL_MINUTES = Long.getLong("shogun.refreshInterval", 60);
+
+    private final RefreshScheduler refreshScheduler = REFRESH_INTERVAL_MINUTES <= 0 ? null :
+            new RefreshScheduler(this::backgroundRefresh, () -> 0 < runningTasks.get(),
+                    Duration.ofMinutes(REFRESH_INTERVAL_MINUTES),
+                    Duration.ofMinutes(Math.max(REFRESH_INTERVAL_MINUTES, TimeUnit.DAYS.toMinutes(1))),
+                    Duration.ofMinutes(1));
+
+    // created with the tray so that the version menu built on the execute thread sees it
+    private final Prefetcher prefetcher = Prefetcher.createIfConfigured(sdk, () -> 0 < runningTasks.get());
+
+    /**
+     * Refreshes on the execute thread so that the refresh never overlaps with user operations mutating the menu, and
+     * waits for the outcome on the scheduler thread.
+     */
+    private RefreshScheduler.Outcome backgroundRefresh() {
+        try {
+            return executorService.submit(() -> {
+                String before = menuFingerprint();
+                SDKStatus status = initializeMenuItems();
+                if (status.isOffline()) {
+                    return RefreshScheduler.Outcome.OFFLINE;
+                }
+                return before.equals(menuFingerprint()) ? RefreshScheduler.Outcome.UNCHANGED : RefreshScheduler.Outcome.CHANGED;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException | RejectedExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String menuFingerprint() {
+        StringBuilder fingerprint = new StringBuilder(String.valueOf(sdkManVersionLabel));
+        new TreeMap<>(candidateMap).forEach((candidate, e) -> {
+            List<Version> versions = e.versions;
+            if (versions != null) {
+                versions.forEach(version -> fingerprint.append('\n').append(candidate)
+                        .append(' ').append(version.getIdentifier())
+                        .append(' ').append(version.isInstalled())
+                        .append(' ').append(version.isLocallyInstalled())
+                        .append(' ').append(version.isUse()));
+            }
+        });
+        return fingerprint.toString();
+    }
+
+    /**
+     * Called when Shogun is launched again while running. Tells the user where the running instance is and refreshes
+     * the menu.
+     */
+    public void activate() {
+        logger.debug("Activated by another launch.");
+        invokeLater(() -> {
+            if (icon != null) {
+                icon.displayMessage("Shogun", getMessage(Messages.alreadyRunning), TrayIcon.MessageType.INFO);
+            }
+        });
+        execute(this::initializeMenuItems);
+    }
+
+    /**
+     * "tray" to quit as soon as the tray icon is visible, "menu" to quit once menu items are initialized.<br>
+     * Used by the AppCDS training run and the startup benchmark.
+     */
+    private static final String EXIT_AFTER_STARTUP = System.getProperty("shogun.exitAfterStartup", "");
+
+    private void exitAfterStartup() {
+        logger.info("Startup finished in {} ms.", ProcessHandle.current().info().startInstant()
+                .map(e -> System.currentTimeMillis() - e.toEpochMilli()).orElse(-1L));
+        quit();
     }
 
     private void quit() {
+        if (refreshScheduler != null) {
+            refreshScheduler.stop();
+        }
+        if (archiveMirror != null) {
+            archiveMirror.close();
+        }
+        if (prefetcher != null) {
+            prefetcher.stop();
+        }
+        saveMenuItems();
         invokeLater(() -> tray.remove(icon));
         System.exit(0);
     }
 
-    private final Map<String, Candidate> candidateMap = new HashMap<>();
+    private final Map<String, Candidate> candidateMap = new ConcurrentHashMap<>();
+
+    private static final int BENCHMARK_SAMPLES = Integer.getInteger("shogun.benchmarkSamples", 5);
+    private final JDKBenchmark jdkBenchmark = new JDKBenchmark();
+    // startup time shown next to each JDK. loaded lazily from the last benchmark
+    private final Map<String, JDKBenchmark.Result> benchmarkResults = new ConcurrentHashMap<>();
 
-    private synchronized void initializeMenuItems() {
+    private synchronized void restoreMenuItems() {
+        benchmarkResults.putAll(jdkBenchmark.load());
+        VersionCache.Snapshot snapshot = versionCache.load();
+        if (snapshot.isEmpty() || !sdk.isInstalled()) {
+            return;
+        }
+        logger.debug("Restoring menu items from the cache.");
+        if (snapshot.getSdkManVersion() != null) {
+            initializeVersionMenu(snapshot.getSdkManVersion(), false);
+        }
+        List<String> installedCandidates = sdk.getInstalledCandidates();
+        snapshot.getVersions().forEach((candidate, versions) ->
+                candidateMap.computeIfAbsent(candidate, e -> new Candidate(e, installedCandidates.contains(e)))
+                        .setVersions(versions));
+    }
+
+    // not synchronized so that quitting won't wait for initializeMenuItems to finish
+    private void saveMenuItems() {
+        Map<String, List<Version>> versions = new TreeMap<>();
+        candidateMap.forEach((candidate, e) -> {
+            if (e.versions != null) {
+                versions.put(candidate, e.versions);
+            }
+        });
+        if (!versions.isEmpty()) {
+            versionCache.save(sdkManVersionLabel, versions);
+        }
+    }
+
+    /**
+     * @return status observed while building the SDKMAN! version menu
+     */
+    private synchronized SDKStatus initializeMenuItems() {
+        try (Metrics.Sample ignored = Metrics.start("shogun_menu_refresh", "all")) {
+            return initializeAllMenuItems();
+        }
+    }
+
+    private SDKStatus initializeAllMenuItems() {
         logger.debug("Initializing menu items.");
-        initializeVersionMenu();
+        SDKStatus status = initializeVersionMenu();
 
         List<String> installedCandidates = new ArrayList<>();
         if (sdk.isInstalled()) {
@@ -244,8 +464,7 @@ public class TaskTray {
                         candidateMap.computeIfAbsent(e, e2 -> new Candidate(e, true));
                     });
         }
-        if (!sdk.isOffline()) {
-            logger.debug("Offline mode.");
+        if (!status.isOffline()) {
             // list available candidates
             sdk.listCandidates().stream()
                     .filter(e -> !installedCandidates.contains(e))
@@ -256,36 +475,65 @@ public class TaskTray {
                     });
         }
         installedCandidates.forEach(e -> candidateMap.get(e).refreshMenus());
+        return status;
     }
 
-    private void initializeVersionMenu() {
-        invokeLater(() -> popup.remove(versionMenu));
+    private String sdkManVersionLabel;
+
+    /**
+     * @return status observed while building the menu
+     */
+    private SDKStatus initializeVersionMenu() {
         if (sdk.isInstalled()) {
-            Menu newVersionMenu = new Menu();
-            String label = sdk.getVersion();
-            if (sdk.isOffline()) {
+            SDKResult<String> version = sdk.version();
+            String label = version.getValue();
+            if (version.isOffline()) {
                 label += " (" + getMessage(Messages.offline) + ")";
             }
-            if (sdk.isUpdateAvailable()) {
+            if (version.isUpdateAvailable()) {
                 label += " (" + getMessage(Messages.updateAvailable) + ")";
-                updateMenu.addActionListener(e -> updateSDK());
-                newVersionMenu.add(updateMenu);
             }
-            newVersionMenu.setLabel(label);
-
-            MenuItem refreshMenu = new MenuItem(getMessage(Messages.refresh));
-            refreshMenu.addActionListener(e -> refreshMenuClicked());
-            newVersionMenu.add(refreshMenu);
-
-            setFlushArchivesMenuLabel();
-            newVersionMenu.add(flushArchivesMenu);
-
-            versionMenu = newVersionMenu;
+            initializeVersionMenu(label, version.isUpdateAvailable());
+            return version.getStatus();
         } else {
+            invokeLater(() -> popup.remove(versionMenu));
             versionMenu = new MenuItem(getMessage(Messages.installSDKMan));
             versionMenu.addActionListener(e -> installSDK());
+            invokeLater(() -> popup.insert(versionMenu, popup.getItemCount() - 2));
+            return sdk.getStatus();
+        }
+    }
+
+    private void initializeVersionMenu(String label, boolean updateAvailable) {
+        invokeLater(() -> popup.remove(versionMenu));
+        sdkManVersionLabel = label;
+        Menu newVersionMenu = new Menu();
+        if (updateAvailable) {
+            updateMenu.addActionListener(e -> updateSDK());
+            newVersionMenu.add(updateMenu);
+        }
+        newVersionMenu.setLabel(label);
+
+        MenuItem refreshMenu = new MenuItem(getMessage(Messages.refresh));
+        refreshMenu.addActionListener(e -> refreshMenuClicked());
+        newVersionMenu.add(refreshMenu);
+
+        setFlushArchivesMenuLabel();
+        newVersionMenu.add(flushArchivesMenu);
+
+        if (prefetcher != null) {
+            CheckboxMenuItem pausePrefetchMenu = new CheckboxMenuItem(getMessage(Messages.pausePrefetch), prefetcher.isPaused());
+            pausePrefetchMenu.addItemListener(e -> {
+                if (pausePrefetchMenu.getState()) {
+                    prefetcher.pause();
+                } else {
+                    prefetcher.resume();
+                }
+            });
+            newVersionMenu.add(pausePrefetchMenu);
         }
 
+        versionMenu = newVersionMenu;
         invokeLater(() -> popup.insert(versionMenu, popup.getItemCount() - 2));
     }
 
@@ -306,8 +554,23 @@ public class TaskTray {
         }
 
         void refreshMenus() {
+            MenuRefreshEvent event = new MenuRefreshEvent();
+            event.begin();
+            try (Metrics.Sample ignored = Metrics.start("shogun_menu_refresh", candidate)) {
+                refreshCandidateMenus();
+            } finally {
+                if (event.shouldCommit()) {
+                    event.candidate = candidate;
+                    event.versions = versions == null ? 0 : versions.size();
+                    event.commit();
+                }
+            }
+        }
+
+        private void refreshCandidateMenus() {
             logger.debug("Refreshing menus for: {}", candidate);
-            this.versions = sdk.list(candidate);
+            sdk.list(candidate);
+            List<Version> versions = sdk.index(candidate).newestFirstByVendor();
             List<Version> sortedVersions = new ArrayList<>();
             versions.stream().filter(e -> e.isInstalled() || e.isLocallyInstalled()).forEach(sortedVersions::add);
             if ("java".equals(candidate)) {
@@ -319,18 +582,115 @@ public class TaskTray {
                 });
             }
             versions.stream().filter(e -> !e.isInstalled() && !e.isLocallyInstalled()).forEach(sortedVersions::add);
-            this.versions = sortedVersions;
+            setVersions(sortedVersions);
+            setFlushArchivesMenuLabel();
+        }
+
+        void setVersions(List<Version> newVersions) {
+            // menus are built from the compact views so that the versions retained by them share the interned strings
+            List<Version> versions = versionCatalogue.put(candidate, newVersions);
+            this.versions = versions;
+            List<NotRegisteredVersion> detectedVersions = versions.stream()
+                    .filter(e -> e instanceof NotRegisteredVersion)
+                    .map(e -> (NotRegisteredVersion) e).collect(Collectors.toList());
+            List<Version> launchableVersions = !"java".equals(candidate) ? List.of() : versions.stream()
+                    .filter(e -> e.isInstalled() || e.isLocallyInstalled() || e.isDetected()).collect(Collectors.toList());
+            List<Version> versionsWithoutCDSArchive = launchableVersions.stream()
+                    .filter(e -> !e.isDetected() && !CDSArchive.exists(e)).collect(Collectors.toList());
             invokeLater(() -> {
                 candidateMenu.removeAll();
                 setRootMenuLabel(candidateMenu);
 
-                for (Version version : versions) {
-                    Menu menu = new Menu(toLabel(version));
-                    updateMenu(menu, version);
+                for (int i = 0; i < versions.size(); i++) {
+                    Menu menu = new Menu();
+                    updateMenu(menu, versions, i);
                     candidateMenu.add(menu);
                 }
+                if (!detectedVersions.isEmpty() || !launchableVersions.isEmpty()) {
+                    candidateMenu.addSeparator();
+                }
+                if (!detectedVersions.isEmpty()) {
+                    MenuItem registerAllMenu = new MenuItem(getMessage(Messages.registerAll));
+                    registerAllMenu.addActionListener(e -> registerAll(detectedVersions));
+                    candidateMenu.add(registerAllMenu);
+                }
+                if (!launchableVersions.isEmpty()) {
+                    MenuItem benchmarkMenu = new MenuItem(getMessage(Messages.benchmarkStartup));
+                    benchmarkMenu.addActionListener(e -> benchmark(launchableVersions));
+                    candidateMenu.add(benchmarkMenu);
+                }
+                if (1 < versionsWithoutCDSArchive.size()) {
+                    MenuItem generateAllMenu = new MenuItem(getMessage(Messages.generateAllCDSArchives));
+                    generateAllMenu.addActionListener(e -> generateCDSArchives(versionsWithoutCDSArchive));
+                    candidateMenu.add(generateAllMenu);
+                }
             });
-            setFlushArchivesMenuLabel();
+        }
+
+        void generateCDSArchives(List<Version> targetVersions) {
+            runInBackground("Shogun CDS Archive Generator", () -> {
+                List<CDSArchive.Result> results = new ArrayList<>();
+                for (int i = 0; i < targetVersions.size(); i++) {
+                    Version version = targetVersions.get(i);
+                    String progress = getMessage(Messages.generatingCDSArchive, version.getIdentifier(),
+                            String.valueOf(i + 1), String.valueOf(targetVersions.size()));
+                    invokeLater(() -> icon.setToolTip(progress));
+                    results.add(CDSArchive.generate(version));
+                }
+                invokeLater(() -> icon.setToolTip("Shogun"));
+                // on the execute thread, so that the versions of a refresh finished meanwhile aren't overwritten
+                execute(() -> setVersions(versions));
+                String message = results.stream().map(CDSArchive.Result::toString).collect(Collectors.joining("\n"));
+                if (!skipConfirmation) {
+                    invokeLater(() -> JOptionPane.showMessageDialog(thisFrameMakesDialogsAlwaysOnTop, message,
+                            getMessage(Messages.generateCDSArchive), INFORMATION_MESSAGE, getDialogIcon()));
+                }
+            });
+        }
+
+        void benchmark(List<Version> launchableVersions) {
+            int response = skipConfirmation ? JOptionPane.OK_OPTION :
+                    JOptionPane.showConfirmDialog(thisFrameMakesDialogsAlwaysOnTop,
+                            getMessage(Messages.confirmBenchmarkStartupMessage, String.valueOf(launchableVersions.size())),
+                            getMessage(Messages.benchmarkStartupTitle), JOptionPane.OK_CANCEL_OPTION,
+                            QUESTION_MESSAGE, getDialogIcon());
+            if (response != JOptionPane.OK_OPTION) {
+                return;
+            }
+            runInBackground("Shogun JDK Benchmark", () -> {
+                List<JDKBenchmark.Result> results = jdkBenchmark.run(launchableVersions, BENCHMARK_SAMPLES,
+                        result -> benchmarkResults.put(result.getIdentifier(), result));
+                execute(() -> setVersions(versions));
+                String message = results.stream().map(JDKBenchmark.Result::toString).collect(Collectors.joining("\n"));
+                if (!skipConfirmation) {
+                    invokeLater(() -> JOptionPane.showMessageDialog(thisFrameMakesDialogsAlwaysOnTop, message,
+                            getMessage(Messages.benchmarkStartupTitle), INFORMATION_MESSAGE, getDialogIcon()));
+                }
+            });
+        }
+
+        void registerAll(List<NotRegisteredVersion> detectedVersions) {
+            int response = skipConfirmation ? JOptionPane.OK_OPTION :
+                    JOptionPane.showConfirmDialog(thisFrameMakesDialogsAlwaysOnTop,
+                            getMessage(Messages.confirmRegisterAllMessage, String.valueOf(detectedVersions.size())),
+                            getMessage(Messages.confirmRegisterAllTitle), JOptionPane.OK_CANCEL_OPTION,
+                            QUESTION_MESSAGE, getDialogIcon());
+            if (response == JOptionPane.OK_OPTION) {
+                execute(() -> {
+                    logger.debug("Register all: {}", detectedVersions);
+                    List<RegistrationResult> results = sdk.registerAll(detectedVersions);
+                    refreshMenus();
+                    long registered = results.stream().filter(RegistrationResult::isRegistered).count();
+                    String details = results.stream().filter(e -> !e.isRegistered())
+                            .map(RegistrationResult::toString).collect(Collectors.joining("\n"));
+                    String message = getMessage(Messages.registerAllResultMessage, String.valueOf(registered), String.valueOf(results.size()))
+                            + (details.isEmpty() ? "" : "\n" + details);
+                    if (!skipConfirmation) {
+                        invokeLater(() -> JOptionPane.showMessageDialog(thisFrameMakesDialogsAlwaysOnTop, message,
+                                getMessage(Messages.confirmRegisterAllTitle), INFORMATION_MESSAGE, getDialogIcon()));
+                    }
+                });
+            }
         }
 
         private boolean isInstalled() {
@@ -346,35 +706,13 @@ public class TaskTray {
             invokeLater(() -> menu.setLabel(label));
         }
 
-        Menu find(Menu menu, Version version) {
-            for (int i = 0; i < menu.getItemCount(); i++) {
-                Menu item = (Menu) menu.getItem(i);
-                if (item.getLabel().contains(version.toString())) {
-                    return item;
-                }
-            }
-            throw new IllegalStateException("menu not found");
-        }
-
         void setDefault(Version version) {
             execute(() -> {
                 logger.debug("Set default: {}", version);
-                Menu menu = candidateMenu;
-                Optional<Version> lastDefault = versions.stream().filter(Version::isUse).findFirst();
                 sdk.makeDefault(version.getCandidate(), version);
 
-                Version newDefaultVersion = versions.get(versions.indexOf(version));
-                newDefaultVersion.setUse(true);
-                Menu newDefaultMenu = find(menu, newDefaultVersion);
-                invokeLater(() -> {
-                    lastDefault.ifPresent(oldDefaultVersion -> {
-                        oldDefaultVersion.setUse(false);
-                        Menu oldDefaultMenu = find(menu, oldDefaultVersion);
-                        updateMenu(oldDefaultMenu, oldDefaultVersion);
-                    });
-                    updateMenu(newDefaultMenu, newDefaultVersion);
-                });
-                setRootMenuLabel(menu);
+                // labels and items depend on the default, which is read from the link
+                setVersions(versions);
             });
         }
 
@@ -394,13 +732,16 @@ public class TaskTray {
             int response = skipConfirmation ? JOptionPane.OK_OPTION :
                     JOptionPane.showConfirmDialog(thisFrameMakesDialogsAlwaysOnTop,
                             dialogMessage, dialogTitle, JOptionPane.OK_CANCEL_OPTION,
-                            QUESTION_MESSAGE, dialogIcon);
+                            QUESTION_MESSAGE, getDialogIcon());
             if (response == JOptionPane.OK_OPTION) {
                 execute(() -> {
                     logger.debug("Install: {}", version);
                     var wasInstalled = isInstalled();
-                    sdk.install(version, progressConsumer);
-                    onFinished.run();
+                    try {
+                        sdk.install(version, progressConsumer);
+                    } finally {
+                        onFinished.run();
+                    }
                     refreshMenus();
                     if (!wasInstalled) {
                         // this candidate wasn't installed. move to installed candidates list
@@ -417,7 +758,7 @@ public class TaskTray {
                     JOptionPane.showConfirmDialog(thisFrameMakesDialogsAlwaysOnTop,
                             getMessage(Messages.confirmUninstallMessage, version.getCandidate(), version.toString()),
                             getMessage(Messages.confirmUninstallTitle, version.getCandidate(), version.toString()), JOptionPane.OK_CANCEL_OPTION,
-                            QUESTION_MESSAGE, dialogIcon);
+                            QUESTION_MESSAGE, getDialogIcon());
             if (response == JOptionPane.OK_OPTION) {
                 execute(() -> {
                     logger.debug("Uninstall: {}", version);
@@ -469,62 +810,76 @@ public class TaskTray {
             }
         }
 
-        // needs to be called inside GUI thread
-        private void updateMenu(Menu menu, Version version) {
+        /**
+         * Builds the menu of a version. Listeners keep the view and the row rather than the version, which is
+         * created again from the catalogue when the menu is used. needs to be called inside GUI thread
+         *
+         * @param menu     menu
+         * @param versions view of the catalogue
+         * @param index    row of the version
+         */
+        private void updateMenu(Menu menu, List<Version> versions, int index) {
+            Version version = versions.get(index);
             menu.setLabel(toLabel(version));
             menu.removeAll();
 
             if ((version.isInstalled() || version.isLocallyInstalled()) && !version.isUse()) {
                 MenuItem menuItem = new MenuItem(getMessage(Messages.makeDefault));
-                menuItem.addActionListener(e -> setDefault(version));
+                menuItem.addActionListener(e -> setDefault(versions.get(index)));
                 menu.add(menuItem);
             }
             if (version.isInstalled() || version.isLocallyInstalled()) {
                 Platform.isMac(() -> {
                     MenuItem openInTerminalMenu = new MenuItem(getMessage(Messages.openInTerminal, version.getIdentifier()));
-                    openInTerminalMenu.addActionListener(e -> openInTerminal(version));
+                    openInTerminalMenu.addActionListener(e -> openInTerminal(versions.get(index)));
                     menu.add(openInTerminalMenu);
                 });
             }
             if (version.isDetected() || version.isInstalled() || version.isLocallyInstalled()) {
                 MenuItem copyPathMenu = new MenuItem(getMessage(Messages.copyPath));
-                copyPathMenu.addActionListener(e -> copyPathToClipboard(version));
+                copyPathMenu.addActionListener(e -> copyPathToClipboard(versions.get(index)));
                 menu.add(copyPathMenu);
 
                 MenuItem revealInFinderMenu = new MenuItem(getMessage(Platform.isMac ? Messages.revealInFinder : Messages.showInExplorer));
-                revealInFinderMenu.addActionListener(e -> revealInFinder(version));
+                revealInFinderMenu.addActionListener(e -> revealInFinder(versions.get(index)));
                 menu.add(revealInFinderMenu);
 
                 if (GraalUtil.isGraal(version) && !GraalUtil.isNativeImageCommandInstalled(version)) {
                     MenuItem installNativeImage = new MenuItem(getMessage(Messages.installNativeImage));
-                    installNativeImage.addActionListener(e -> installNativeImageCommand(version));
+                    installNativeImage.addActionListener(e -> installNativeImageCommand(versions.get(index)));
                     menu.add(installNativeImage);
                 }
+                if ("java".equals(version.getCandidate()) && !version.isDetected() && !CDSArchive.exists(version)) {
+                    MenuItem generateCDSArchive = new MenuItem(getMessage(Messages.generateCDSArchive));
+                    generateCDSArchive.addActionListener(e -> generateCDSArchives(List.of(versions.get(index))));
+                    menu.add(generateCDSArchive);
+                }
             }
 
             if (version.isInstalled() || version.isLocallyInstalled()) {
                 MenuItem uninstallItem = new MenuItem(getMessage(version.isLocallyInstalled() ? Messages.unregister : Messages.uninstall));
-                uninstallItem.addActionListener(e -> uninstall(version));
+                uninstallItem.addActionListener(e -> uninstall(versions.get(index)));
                 menu.add(uninstallItem);
             }
 
             if (!version.isInstalled() && !version.isLocallyInstalled()) {
                 MenuItem menuItem = new MenuItem(getMessage(version.isDetected() ? Messages.register : Messages.install));
                 menuItem.addActionListener(e -> {
+                    Version target = versions.get(index);
                     menuItem.setEnabled(false);
                     MenuItem installingLabel = new MenuItem();
                     installingLabel.setEnabled(false);
                     popup.add(installingLabel);
 
-                    String waitingForStartLabel = toInstallingLabel(version, "Waiting for start...");
-                    menu.setLabel(withUsePrefix(version, waitingForStartLabel));
-                    installingLabel.setLabel(withCandidate(version, waitingForStartLabel));
-                    install(version, progress -> {
-                        logger.info("Installing {}... Progress: {}", version, progress);
+                    String waitingForStartLabel = toInstallingLabel(target, "Waiting for start...");
+                    menu.setLabel(withUsePrefix(target, waitingForStartLabel));
+                    installingLabel.setLabel(withCandidate(target, waitingForStartLabel));
+                    install(target, progress -> {
+                        logger.info("Installing {}... Progress: {}", target, progress);
                         invokeLater(() -> {
-                            String progressLabel = toInstallingLabel(version, progress);
-                            menu.setLabel(withUsePrefix(version, progressLabel));
-                            installingLabel.setLabel(withCandidate(version, progressLabel));
+                            String progressLabel = toInstallingLabel(target, progress);
+                            menu.setLabel(withUsePrefix(target, progressLabel));
+                            installingLabel.setLabel(withCandidate(target, progressLabel));
                         });
                     }, () -> invokeLater(() -> popup.remove(installingLabel)));
                 });
@@ -590,7 +945,7 @@ public class TaskTray {
         return (version.isUse() ? ">" : "  ") + label;
     }
 
-    private static String toLabel(Version version) {
+    private String toLabel(Version version) {
         String label = withUsePrefix(version, version.toString());
         if (version.isLocallyInstalled()) {
             label += " (local only)";
@@ -599,6 +954,10 @@ public class TaskTray {
         } else if (version.isDetected()) {
             label += " (detected)";
         }
+        JDKBenchmark.Result result = "java".equals(version.getCandidate()) ? benchmarkResults.get(version.getIdentifier()) : null;
+        if (result != null) {
+            label += " " + (0 <= result.getHelloMillis() ? result.getHelloMillis() : result.getJavaVersionMillis()) + " ms";
+        }
         return label;
     }
 
@@ -0,0 +1,56 @@
+package shogun;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShogunTest {
+
+    @Test
+    void provisionReportOnStandardOutput() throws IOException, InterruptedException {
+        Path home = Files.createTempDirectory("shogunHome");
+        try {
+            Path sdkManDir = home.resolve(".sdkman");
+            Files.createDirectories(sdkManDir.resolve("bin"));
+            Files.createFile(sdkManDir.resolve("bin").resolve("sdkman-init.sh"));
+            Files.createDirectories(sdkManDir.resolve("candidates").resolve("maven").resolve("3.6.1"));
+            Path manifest = Files.writeString(home.resolve("manifest.txt"), "maven 3.6.1\n");
+
+            ProcessBuilder builder = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), "-Duser.home=" + home, "-Dshogun.logLevel=DEBUG",
+                    Shogun.class.getName(), "provision", manifest.toString())
+                    .redirectError(home.resolve("stderr.txt").toFile())
+                    .redirectOutput(home.resolve("stdout.txt").toFile());
+            builder.environment().put("SDKMAN_DIR", sdkManDir.toString());
+            Process process = builder.start();
+            assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+            assertEquals(0, process.exitValue());
+
+            // nothing but the report
+            String stdout = Files.readString(home.resolve("stdout.txt"), StandardCharsets.UTF_8);
+            assertEquals("{\n" +
+                    "  \"succeeded\": true,\n" +
+                    "  \"results\": [\n" +
+                    "    {\"candidate\": \"maven\", \"identifier\": \"3.6.1\", \"status\": \"ALREADY_INSTALLED\", \"default\": false, \"millis\": 0, \"message\": null}\n" +
+                    "  ]\n" +
+                    "}\n", stdout);
+            List<String> stderr = Files.readAllLines(home.resolve("stderr.txt"), StandardCharsets.UTF_8);
+            assertTrue(stderr.stream().anyMatch(e -> e.contains("maven 3.6.1 is already installed")), String.join("\n", stderr));
+        } finally {
+            try (Stream<Path> paths = Files.walk(home)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package shogun;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleInstanceTest {
+
+    @Test
+    void handOff() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("shogunInstance");
+        try {
+            BlockingQueue<String> commands = new ArrayBlockingQueue<>(1);
+            SingleInstance first = SingleInstance.acquire(dir, "show");
+            assertNotNull(first);
+            first.listen(commands::add);
+
+            // second launch hands off its command
+            assertNull(SingleInstance.acquire(dir, "show"));
+            assertEquals("show", commands.poll(5, TimeUnit.SECONDS));
+
+            // port file left behind by a crashed instance is ignored
+            first.close();
+            Files.writeString(dir.resolve("instance.port"), "1\nstale\n");
+            SingleInstance next = SingleInstance.acquire(dir, "show");
+            assertNotNull(next);
+            next.close();
+        } finally {
+            Files.deleteIfExists(dir.resolve("instance.port"));
+            Files.deleteIfExists(dir.resolve("instance.lock"));
+            Files.deleteIfExists(dir);
+        }
+    }
+}
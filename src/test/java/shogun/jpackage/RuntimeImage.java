@@ -0,0 +1,26 @@
+package shogun.jpackage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Builds the runtime image jpackager bundles with jlink, so that the AppCDS archive is dumped with the same lib/modules
+ * the bundled launcher runs on. JDK 11 silently ignores an archive dumped on a different runtime image under
+ * -Xshare:auto.<br>
+ * usage: RuntimeImage &lt;output dir&gt; &lt;modules passed to jpackager&gt;
+ */
+class RuntimeImage {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: RuntimeImage <output dir> <modules passed to jpackager>");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[0]);
+        RuntimeImageBuilder.deleteRecursively(output);
+        RuntimeImageBuilder.jlink(output, new TreeSet<>(Arrays.asList(args[1].split(","))));
+        System.out.println("Runtime image: " + output.toAbsolutePath());
+    }
+}
@@ -0,0 +1,114 @@
+package shogun.jpackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.spi.ToolProvider;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes the module set the shaded jar actually depends on with jdeps, builds a trimmed runtime image from it with
+ * jlink and compares it with a runtime image built from the module set passed to jpackager.<br>
+ * usage: RuntimeImageBuilder &lt;jar&gt; &lt;output dir&gt; &lt;modules passed to jpackager&gt; &lt;runs&gt;
+ */
+class RuntimeImageBuilder {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println("usage: RuntimeImageBuilder <jar> <output dir> <modules passed to jpackager> <runs>");
+            System.exit(1);
+        }
+        String jar = args[0];
+        Path output = Paths.get(args[1]);
+        Set<String> currentModules = new TreeSet<>(Arrays.asList(args[2].split(",")));
+        int runs = Integer.parseInt(args[3]);
+
+        Set<String> requiredModules = jdeps(jar);
+        System.out.println("Modules passed to jpackager: " + currentModules);
+        System.out.println("Modules required by " + jar + ": " + requiredModules);
+        Set<String> missing = new TreeSet<>(requiredModules);
+        missing.removeAll(currentModules);
+        Set<String> unnecessary = new TreeSet<>(currentModules);
+        unnecessary.removeAll(requiredModules);
+        if (!missing.isEmpty()) {
+            System.out.println("Missing from jpackager --add-modules: " + missing);
+        }
+        if (!unnecessary.isEmpty()) {
+            System.out.println("Not required by " + jar + ": " + unnecessary);
+        }
+
+        deleteRecursively(output);
+        Path current = output.resolve("current");
+        Path minimal = output.resolve("minimal");
+        // same as the runtime jpackager bundles
+        jlink(current, currentModules);
+        jlink(minimal, requiredModules, "--strip-debug", "--compress=2", "--no-header-files", "--no-man-pages");
+        System.out.printf("Image size: current %,d KB, minimal %,d KB%n", size(current) / 1024, size(minimal) / 1024);
+
+        String jvmArgs = "-Xmx12m -Xms12m -XX:+UseSerialGC";
+        StartupBenchmark.run(jar, runs, List.of(
+                new StartupBenchmark.Variant("current-image", java(current), Arrays.asList(jvmArgs.split(" "))),
+                new StartupBenchmark.Variant("minimal-image", java(minimal), Arrays.asList(jvmArgs.split(" ")))));
+    }
+
+    private static Set<String> jdeps(String jar) {
+        String output;
+        try {
+            output = run("jdeps", "--print-module-deps", "--ignore-missing-deps", "--multi-release", "11", jar);
+        } catch (IllegalStateException e) {
+            // --ignore-missing-deps is not available on older jdeps
+            output = run("jdeps", "--print-module-deps", "--multi-release", "11", jar);
+        }
+        String[] lines = output.trim().split("\n");
+        // module list is printed in the last line
+        return Stream.of(lines[lines.length - 1].trim().split(","))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    static void jlink(Path output, Set<String> modules, String... options) {
+        List<String> args = new ArrayList<>(Arrays.asList("--add-modules", String.join(",", modules), "--output", output.toString()));
+        args.addAll(Arrays.asList(options));
+        run("jlink", args.toArray(new String[0]));
+    }
+
+    private static String run(String toolName, String... args) {
+        ToolProvider tool = ToolProvider.findFirst(toolName)
+                .orElseThrow(() -> new IllegalStateException(toolName + " not found. JDK is required."));
+        StringWriter out = new StringWriter();
+        StringWriter err = new StringWriter();
+        int exitCode = tool.run(new PrintWriter(out, true), new PrintWriter(err, true), args);
+        if (exitCode != 0) {
+            throw new IllegalStateException(String.format("%s %s returned [%d]: %s%s", toolName, String.join(" ", args), exitCode, out, err));
+        }
+        return out.toString();
+    }
+
+    private static String java(Path image) {
+        return image.resolve("bin").resolve(File.separatorChar == '\\' ? "java.exe" : "java").toAbsolutePath().toString();
+    }
+
+    private static long size(Path path) throws IOException {
+        try (Stream<Path> stream = Files.walk(path)) {
+            return stream.filter(Files::isRegularFile).mapToLong(e -> e.toFile().length()).sum();
+        }
+    }
+
+    static void deleteRecursively(Path path) throws IOException {
+        if (Files.exists(path)) {
+            try (Stream<Path> stream = Files.walk(path)) {
+                //noinspection ResultOfMethodCallIgnored
+                stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package shogun.jpackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches Shogun repeatedly with different JVM configurations and reports the time until the process exits and the peak RSS.<br>
+ * Shogun is launched with -Dshogun.exitAfterStartup=tray so that it quits as soon as the tray icon is visible.<br>
+ * usage: StartupBenchmark &lt;jar&gt; &lt;runs&gt; &lt;label|java command|jvm args&gt;...
+ */
+class StartupBenchmark {
+    private static final long TIMEOUT_SECONDS = 60;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("usage: StartupBenchmark <jar> <runs> <label|java command|jvm args>...");
+            System.exit(1);
+        }
+        List<Variant> variants = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            variants.add(Variant.parse(args[i]));
+        }
+        run(args[0], Integer.parseInt(args[1]), variants);
+    }
+
+    static void run(String jarPath, int runs, List<Variant> variants) throws IOException, InterruptedException {
+        String jar = new File(jarPath).getAbsolutePath();
+        // warm up the file system cache so that the first variant is not penalized
+        for (Variant variant : variants) {
+            variant.launch(jar);
+        }
+        for (int i = 0; i < runs; i++) {
+            // interleave variants to spread out noise from other processes
+            for (Variant variant : variants) {
+                variant.samples.add(variant.launch(jar));
+            }
+        }
+        // RSS is sampled in separate runs so that polling doesn't affect the timed runs
+        for (Variant variant : variants) {
+            variant.peakRSSKiloBytes = variant.measurePeakRSS(jar);
+        }
+        System.out.printf("%-20s %10s %10s %10s %14s%n", "variant", "min(ms)", "median(ms)", "max(ms)", "peak RSS(KB)");
+        for (Variant variant : variants) {
+            Collections.sort(variant.samples);
+            System.out.printf("%-20s %10d %10d %10d %14d%n", variant.label, variant.samples.get(0),
+                    variant.samples.get(variant.samples.size() / 2), variant.samples.get(variant.samples.size() - 1),
+                    variant.peakRSSKiloBytes);
+        }
+    }
+
+    static class Variant {
+        final String label;
+        final String java;
+        final List<String> jvmArgs;
+        final List<Long> samples = new ArrayList<>();
+        long peakRSSKiloBytes = -1;
+
+        Variant(String label, String java, List<String> jvmArgs) {
+            this.label = label;
+            this.java = java;
+            this.jvmArgs = jvmArgs;
+        }
+
+        static Variant parse(String spec) {
+            String[] split = spec.split("\\|", 3);
+            if (split.length < 2) {
+                throw new IllegalArgumentException("variant should be in label|java command|jvm args format: " + spec);
+            }
+            String args = split.length == 3 ? split[2].trim() : "";
+            return new Variant(split[0], split[1], args.isEmpty() ? List.of() : Arrays.asList(args.split("\\s+")));
+        }
+
+        long launch(String jar) throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            Process process = start(jar);
+            waitFor(process);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        long measurePeakRSS(String jar) throws IOException, InterruptedException {
+            Process process = start(jar);
+            long peak = -1;
+            while (process.isAlive()) {
+                peak = Math.max(peak, readRSSKiloBytes(process.pid()));
+                Thread.sleep(10);
+            }
+            waitFor(process);
+            return peak;
+        }
+
+        private Process start(String jar) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(jvmArgs);
+            command.add("-Dshogun.exitAfterStartup=tray");
+            command.add("-cp");
+            command.add(jar);
+            command.add("shogun.Shogun");
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        }
+
+        private void waitFor(Process process) throws InterruptedException {
+            if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IllegalStateException(label + " didn't exit in " + TIMEOUT_SECONDS + " seconds.");
+            }
+        }
+
+        private static long readRSSKiloBytes(long pid) throws IOException, InterruptedException {
+            Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", String.valueOf(pid))
+                    .redirectErrorStream(true).start();
+            String output = new String(ps.getInputStream().readAllBytes()).trim();
+            ps.waitFor();
+            // empty once the process is gone
+            return output.matches("[0-9]+") ? Long.parseLong(output) : -1;
+        }
+    }
+}
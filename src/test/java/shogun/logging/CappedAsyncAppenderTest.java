@@ -0,0 +1,59 @@
+package shogun.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CappedAsyncAppenderTest {
+
+    @Test
+    void cap() {
+        assertNull(CappedAsyncAppender.cap(null, 3));
+        assertEquals("abc", CappedAsyncAppender.cap("abc", 3));
+        assertEquals("abc... (2 chars truncated)", CappedAsyncAppender.cap("abcde", 3));
+    }
+
+    @Test
+    void capEvent() {
+        LoggerContext context = new LoggerContext();
+        LoggingEvent event = new LoggingEvent(getClass().getName(), context.getLogger("test"), Level.DEBUG,
+                "Response: {}", new IllegalStateException(), new Object[]{"hello"});
+        assertSame(event, CappedAsyncAppender.cap(event, 15, false));
+        ILoggingEvent capped = CappedAsyncAppender.cap(event, 4, false);
+        assertEquals("Resp... (11 chars truncated)", capped.getFormattedMessage());
+        assertEquals(Level.DEBUG, capped.getLevel());
+        assertEquals("test", capped.getLoggerName());
+        assertEquals(event.getTimeStamp(), capped.getTimeStamp());
+        assertEquals(event.getThreadName(), capped.getThreadName());
+        assertSame(event.getThrowableProxy(), capped.getThrowableProxy());
+    }
+
+    @Test
+    void append() {
+        LoggerContext context = new LoggerContext();
+        ListAppender<ILoggingEvent> list = new ListAppender<>();
+        list.setContext(context);
+        list.start();
+        CappedAsyncAppender appender = new CappedAsyncAppender();
+        appender.setContext(context);
+        appender.setMaxMessageLength(4);
+        appender.addAppender(list);
+        appender.start();
+        context.getLogger("test").addAppender(appender);
+        context.getLogger("test").info("Response: {}", "hello");
+        // stopping flushes the queue
+        appender.stop();
+        assertEquals(1, list.list.size());
+        assertEquals("Resp... (11 chars truncated)", list.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    void getLogger() {
+        assertEquals(CappedAsyncAppenderTest.class.getName(), LoggerFactory.getLogger().getName());
+    }
+}
@@ -0,0 +1,59 @@
+package shogun.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import shogun.sdk.SDKLauncher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingTest {
+
+    @Test
+    void record() throws IOException, ParseException {
+        Path dir = Files.createTempDirectory("shogunJFR");
+        Path destination = dir.resolve("shogun.jfr");
+        try {
+            try (Recording recording = FlightRecording.start(destination, Duration.ofMinutes(1), 10 * 1024 * 1024)) {
+                assertEquals(FlightRecording.NAME, recording.getName());
+                assertEquals(Duration.ofMinutes(1), recording.getMaxAge());
+                assertTrue(recording.isToDisk());
+                assertEquals("hello", SDKLauncher.exec("echo hello").trim());
+                SDKLauncher.exec("exit 3");
+                recording.stop();
+            }
+            List<RecordedEvent> commands = RecordingFile.readAllEvents(destination).stream()
+                    .filter(e -> e.getEventType().getName().equals("shogun.Command"))
+                    .collect(Collectors.toList());
+            assertEquals(2, commands.size());
+            RecordedEvent echo = commands.get(0);
+            assertEquals("echo hello", echo.getString("command"));
+            assertEquals(0, echo.getInt("exitCode"));
+            assertEquals(6, echo.getLong("outputSize"));
+            assertTrue(echo.getDuration("spawnTime").toNanos() > 0);
+            assertEquals(3, commands.get(1).getInt("exitCode"));
+        } finally {
+            Files.deleteIfExists(destination);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void notConfigured() throws IOException {
+        Path dir = Files.createTempDirectory("shogunJFR");
+        try {
+            assertNull(FlightRecording.startIfConfigured(dir));
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package shogun.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import shogun.logging.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    void record() throws Exception {
+        Metrics.clear();
+        try (Metrics.Sample ignored = Metrics.start("test_op", "list")) {
+            assertEquals(1, Metrics.timers().get("test_op").get("list").inFlight.sum());
+        }
+        try (Metrics.Sample sample = Metrics.start("test_op", "list")) {
+            sample.failed();
+        }
+        try (Metrics.Sample ignored = Metrics.start("test_op", "install")) {
+            Thread.sleep(30);
+        }
+        Metrics.Timer list = Metrics.timers().get("test_op").get("list");
+        assertEquals(2, list.count.sum());
+        assertEquals(1, list.errors.sum());
+        assertEquals(0, list.inFlight.sum());
+
+        Metrics.Timer install = Metrics.timers().get("test_op").get("install");
+        assertEquals(1, install.count.sum());
+        assertTrue(30 <= install.meanMillis());
+        // 30 ms doesn't fit in the 25 ms bucket
+        for (int i = 0; i <= 3; i++) {
+            assertEquals(0, install.buckets.get(i));
+        }
+
+        String text = PrometheusEndpoint.format();
+        assertTrue(text.contains("# TYPE test_op_seconds histogram\n"));
+        assertTrue(text.contains("test_op_seconds_bucket{type=\"list\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("test_op_seconds_bucket{type=\"install\",le=\"0.025\"} 0\n"));
+        assertTrue(text.contains("test_op_seconds_bucket{type=\"install\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("test_op_seconds_count{type=\"list\"} 2\n"));
+        assertTrue(text.contains("test_op_errors_total{type=\"list\"} 1\n"));
+        assertTrue(text.contains("test_op_errors_total{type=\"install\"} 0\n"));
+        assertTrue(text.contains("test_op_in_flight{type=\"list\"} 0\n"));
+
+        // bucket bounds are inclusive, compared without truncating to milliseconds
+        Metrics.Timer timer = new Metrics.Timer();
+        timer.record(TimeUnit.MICROSECONDS.toNanos(1900), false);
+        timer.record(TimeUnit.MILLISECONDS.toNanos(1), false);
+        assertEquals(1, timer.buckets.get(0));
+        assertEquals(1, timer.buckets.get(1));
+
+        MetricsMBeanImpl.register();
+        MetricsMBeanImpl.register();
+        ObjectName name = new ObjectName(MetricsMBeanImpl.OBJECT_NAME);
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertEquals(Map.of("test_op{type=install}", 0L, "test_op{type=list}", 1L), new MetricsMBeanImpl().getErrors());
+    }
+
+    @Test
+    void logLevel() throws Exception {
+        MetricsMBeanImpl.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MetricsMBeanImpl.OBJECT_NAME);
+        String rootLevel = (String) server.getAttribute(name, "LogLevel");
+        try {
+            server.setAttribute(name, new Attribute("LogLevel", "WARN"));
+            assertEquals("WARN", server.getAttribute(name, "LogLevel"));
+            assertFalse(LoggerFactory.getLogger().isInfoEnabled());
+
+            server.invoke(name, "setLoggerLevel", new Object[]{"shogun.metrics", "DEBUG"}, new String[]{String.class.getName(), String.class.getName()});
+            assertTrue(LoggerFactory.getLogger().isDebugEnabled());
+            // inherits from the root again
+            server.invoke(name, "setLoggerLevel", new Object[]{"shogun.metrics", ""}, new String[]{String.class.getName(), String.class.getName()});
+            assertFalse(LoggerFactory.getLogger().isInfoEnabled());
+
+            assertThrows(IllegalArgumentException.class, () -> new MetricsMBeanImpl().setLogLevel("LOUD"));
+            assertThrows(IllegalArgumentException.class, () -> new MetricsMBeanImpl().setLogLevel(""));
+        } finally {
+            server.setAttribute(name, new Attribute("LogLevel", rootLevel));
+        }
+    }
+
+    @Test
+    void endpoint() throws IOException {
+        Metrics.clear();
+        try (Metrics.Sample ignored = Metrics.start("test_endpoint", "a\"b")) {
+            // escaped in the label
+        }
+        HttpServer server = PrometheusEndpoint.start(0);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://" + server.getAddress().getHostString()
+                    + ":" + server.getAddress().getPort() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain"));
+            try (InputStream in = connection.getInputStream()) {
+                String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(text.contains("test_endpoint_seconds_count{type=\"a\\\"b\"} 1\n"));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveChecksumTest {
+    // sha256 of "shogun"
+    private static final String SHOGUN_SHA256 = "083280ea67396bde2df5fde1839b36f48ab94fc6fbd978983b9a50cd59466a05";
+
+    @Test
+    void verify() throws IOException {
+        Path dir = Files.createTempDirectory("shogunChecksum");
+        Path archive = dir.resolve("java-11.0.3-zulu.zip");
+        try {
+            Files.writeString(archive, "shogun", StandardCharsets.UTF_8);
+
+            assertNull(ArchiveChecksum.read(archive));
+            // nothing is recorded without a checksum to verify against
+            assertEquals(ArchiveChecksum.Verification.UNVERIFIED, ArchiveChecksum.verify(archive, null));
+            assertNull(ArchiveChecksum.read(archive));
+            assertEquals(ArchiveChecksum.Verification.MISMATCH, ArchiveChecksum.verify(archive, "0123456789abcdef"));
+            // mismatching digest is never recorded
+            assertNull(ArchiveChecksum.read(archive));
+
+            assertEquals(ArchiveChecksum.Verification.VERIFIED, ArchiveChecksum.verify(archive, SHOGUN_SHA256.toUpperCase()));
+            assertEquals(SHOGUN_SHA256, ArchiveChecksum.read(archive));
+            // recorded digest is used without hashing again
+            assertEquals(ArchiveChecksum.Verification.VERIFIED, ArchiveChecksum.verify(archive, SHOGUN_SHA256));
+            assertEquals(ArchiveChecksum.Verification.UNVERIFIED, ArchiveChecksum.verify(archive, null));
+
+            // digest is invalidated once the archive changes
+            Files.writeString(archive, "shogun!", StandardCharsets.UTF_8);
+            assertNull(ArchiveChecksum.read(archive));
+        } finally {
+            ArchiveChecksum.discard(archive);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void recorded() throws IOException {
+        Path headers = Files.createTempFile("shogunChecksum", ".headers");
+        try {
+            Files.writeString(headers, "X-Sdkman-ArchiveType: zip\nx-sdkman-checksum-sha-256: ABCDEF\n", StandardCharsets.UTF_8);
+            assertEquals("abcdef", ArchiveChecksum.recorded(headers));
+            Files.writeString(headers, "X-Sdkman-ArchiveType: zip\n", StandardCharsets.UTF_8);
+            assertNull(ArchiveChecksum.recorded(headers));
+        } finally {
+            Files.deleteIfExists(headers);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveExtractorTest {
+    private final boolean posix = Files.getFileAttributeView(Path.of("."), PosixFileAttributeView.class) != null;
+
+    @Test
+    void zip() throws IOException {
+        Path dir = Files.createTempDirectory("shogunExtract");
+        try {
+            byte[] large = new byte[3 * 1024 * 1024];
+            new Random(0).nextBytes(large);
+            Path archive = dir.resolve("java-11.0.3-zulu.zip");
+            writeZip(archive, new Object[][]{
+                    {"zulu11/", 040755, null},
+                    {"zulu11/bin/", 040755, null},
+                    {"zulu11/bin/java", 0100755, "#!/bin/sh".getBytes(StandardCharsets.UTF_8)},
+                    {"zulu11/lib/modules", 0100644, large},
+                    {"zulu11/lib/readonly", 0100444, "r".getBytes(StandardCharsets.UTF_8)},
+                    {"zulu11/release", 0100644, "JAVA_VERSION=\"11.0.3\"".getBytes(StandardCharsets.UTF_8)},
+                    {"zulu11/bin/jshell", 0120777, "java".getBytes(StandardCharsets.UTF_8)},
+            });
+            Map<String, Integer> modes = ArchiveExtractor.unixModes(archive);
+            assertEquals(0100755, modes.get("zulu11/bin/java"));
+            assertEquals(0120777, modes.get("zulu11/bin/jshell"));
+
+            Path versionDir = dir.resolve("candidates").resolve("java").resolve("11.0.3-zulu");
+            new ArchiveExtractor(4).extract(archive, versionDir);
+            // the top level directory becomes the version directory
+            assertEquals("JAVA_VERSION=\"11.0.3\"", Files.readString(versionDir.resolve("release")));
+            assertArrayEquals(large, Files.readAllBytes(versionDir.resolve("lib").resolve("modules")));
+            assertTrue(Files.isSymbolicLink(versionDir.resolve("bin").resolve("jshell")));
+            assertEquals(Path.of("java"), Files.readSymbolicLink(versionDir.resolve("bin").resolve("jshell")));
+            if (posix) {
+                assertEquals("rwxr-xr-x", permissions(versionDir.resolve("bin").resolve("java")));
+                assertEquals("r--r--r--", permissions(versionDir.resolve("lib").resolve("readonly")));
+            }
+            // nothing left in staging
+            try (var stream = Files.list(versionDir.getParent())) {
+                assertEquals(1, stream.count());
+            }
+            assertThrows(IOException.class, () -> new ArchiveExtractor(4).extract(archive, versionDir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void tarGz() throws IOException {
+        Path dir = Files.createTempDirectory("shogunExtract");
+        try {
+            byte[] large = new byte[2 * 1024 * 1024 + 3];
+            new Random(0).nextBytes(large);
+            String longName = "jdk-17.0.1+12/Contents/Home/legal/java.base/" + "a".repeat(120);
+            ByteArrayOutputStream tar = new ByteArrayOutputStream();
+            tarEntry(tar, "./", '5', 0755, null, null);
+            tarEntry(tar, "./jdk-17.0.1+12/Contents/Home/bin/", '5', 0755, null, null);
+            tarEntry(tar, "./jdk-17.0.1+12/Contents/Info.plist", '0', 0644, "plist".getBytes(StandardCharsets.UTF_8), null);
+            tarEntry(tar, "./jdk-17.0.1+12/Contents/Home/bin/java", '0', 0755, "#!/bin/sh".getBytes(StandardCharsets.UTF_8), null);
+            tarEntry(tar, "./jdk-17.0.1+12/Contents/Home/lib/modules", '0', 0644, large, null);
+            tarEntry(tar, "./jdk-17.0.1+12/Contents/Home/lib/libjli.dylib", '2', 0777, null, "../../MacOS/libjli.dylib");
+            tarEntry(tar, "./jdk-17.0.1+12/Contents/Home/bin/java2", '1', 0755, null, "./jdk-17.0.1+12/Contents/Home/bin/java");
+            // GNU long name
+            tarEntry(tar, "././@LongLink", 'L', 0644, (longName + "\0").getBytes(StandardCharsets.UTF_8), null);
+            tarEntry(tar, longName.substring(0, 99), '0', 0644, "long".getBytes(StandardCharsets.UTF_8), null);
+            // pax path
+            String pax = "path=jdk-17.0.1+12/Contents/Home/release\n";
+            String record = (pax.length() + 3) + " " + pax;
+            tarEntry(tar, "PaxHeaders/release", 'x', 0644, record.getBytes(StandardCharsets.UTF_8), null);
+            tarEntry(tar, "ignored", '0', 0644, "JAVA_VERSION=\"17.0.1\"".getBytes(StandardCharsets.UTF_8), null);
+            tar.write(new byte[1024]);
+            Path archive = dir.resolve("java-17.0.1-tem.zip");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+                tar.writeTo(out);
+            }
+
+            Path versionDir = dir.resolve("candidates").resolve("java").resolve("17.0.1-tem");
+            new ArchiveExtractor(4).extract(archive, versionDir);
+            // reduced to Contents/Home as the post-installation hook of SDKMAN! does on macOS
+            assertEquals("JAVA_VERSION=\"17.0.1\"", Files.readString(versionDir.resolve("release")));
+            assertEquals("#!/bin/sh", Files.readString(versionDir.resolve("bin").resolve("java2")));
+            assertArrayEquals(large, Files.readAllBytes(versionDir.resolve("lib").resolve("modules")));
+            assertEquals("long", Files.readString(versionDir.resolve("legal").resolve("java.base").resolve("a".repeat(120))));
+            assertEquals(Path.of("../../MacOS/libjli.dylib"), Files.readSymbolicLink(versionDir.resolve("lib").resolve("libjli.dylib")));
+            if (posix) {
+                assertEquals("rwxr-xr-x", permissions(versionDir.resolve("bin").resolve("java")));
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void outsideOfArchive() throws IOException {
+        Path dir = Files.createTempDirectory("shogunExtract");
+        try {
+            Path archive = dir.resolve("evil-1.0.zip");
+            writeZip(archive, new Object[][]{
+                    {"evil/ok", 0100644, "ok".getBytes(StandardCharsets.UTF_8)},
+                    {"../../evil", 0100644, "evil".getBytes(StandardCharsets.UTF_8)},
+            });
+            Path versionDir = dir.resolve("candidates").resolve("evil").resolve("1.0");
+            assertThrows(IOException.class, () -> new ArchiveExtractor(2).extract(archive, versionDir));
+            assertFalse(Files.exists(dir.resolve("evil")));
+            assertFalse(Files.exists(versionDir));
+            // the staging directory is removed
+            try (var stream = Files.list(versionDir.getParent())) {
+                assertEquals(0, stream.count());
+            }
+
+            Files.writeString(archive, "not an archive");
+            assertThrows(IOException.class, () -> new ArchiveExtractor(2).extract(archive, versionDir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * Writes a zip with unix modes, which ZipOutputStream doesn't support, by patching the central directory.
+     *
+     * @param archive zip to be written
+     * @param entries {name, mode, content}
+     */
+    private static void writeZip(Path archive, Object[][] entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Object[] entry : entries) {
+                zip.putNextEntry(new ZipEntry((String) entry[0]));
+                if (entry[2] != null) {
+                    zip.write((byte[]) entry[2]);
+                }
+                zip.closeEntry();
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = buffer.limit() - 22;
+        int offset = buffer.getInt(eocd + 16);
+        for (Object[] entry : entries) {
+            assertEquals(0x02014b50, buffer.getInt(offset));
+            buffer.putShort(offset + 4, (short) (3 << 8 | 20));
+            buffer.putInt(offset + 38, (Integer) entry[1] << 16);
+            offset += 46 + buffer.getShort(offset + 28) + buffer.getShort(offset + 30) + buffer.getShort(offset + 32);
+        }
+        Files.write(archive, buffer.array());
+    }
+
+    private static void tarEntry(ByteArrayOutputStream tar, String name, char type, int mode, byte[] content, String link) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, String.format("%07o", mode));
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, String.format("%011o", content == null ? 0 : content.length));
+        put(header, 136, "00000000000");
+        header[156] = (byte) type;
+        if (link != null) {
+            put(header, 157, link);
+        }
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        // checksum is computed with the checksum field filled with spaces
+        put(header, 148, "        ");
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        put(header, 148, String.format("%06o\0 ", checksum));
+        tar.write(header);
+        if (content != null) {
+            tar.write(content);
+            tar.write(new byte[(512 - content.length % 512) % 512]);
+        }
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static String permissions(Path path) throws IOException {
+        return PosixFilePermissions.toString(Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS));
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (var stream = Files.walk(dir)) {
+            stream.sorted(Collections.reverseOrder()).forEach(e -> {
+                e.toFile().setWritable(true);
+                e.toFile().delete();
+            });
+        }
+    }
+}
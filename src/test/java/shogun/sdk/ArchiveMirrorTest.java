@@ -0,0 +1,65 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveMirrorTest {
+
+    @Test
+    void fetch() throws IOException {
+        Path serverArchives = Files.createTempDirectory("shogunMirrorServer");
+        Path clientArchives = Files.createTempDirectory("shogunMirrorClient");
+        byte[] content = new byte[1024 * 1024 + 7];
+        new Random(0).nextBytes(content);
+        Path served = Files.write(serverArchives.resolve("java-11.0.3-zulu.zip"), content);
+        Path fetched = clientArchives.resolve("java-11.0.3-zulu.zip");
+        try (ArchiveMirror mirror = ArchiveMirror.start(serverArchives, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            URI peer = URI.create("http://" + mirror.getAddress().getHostString() + ":" + mirror.getAddress().getPort());
+            String checksum = ArchiveChecksum.toHex(ArchiveChecksum.newDigest().digest(content));
+            assertEquals(ArchiveChecksum.Verification.VERIFIED, ArchiveChecksum.verify(served, checksum));
+
+            // the checksum the peer sends is not trusted
+            assertFalse(ArchiveMirror.fetch(peer, "java", "11.0.3-zulu", clientArchives, null));
+            assertFalse(Files.exists(fetched));
+            assertTrue(ArchiveMirror.fetch(peer, "java", "11.0.3-zulu", clientArchives, checksum));
+            assertArrayEquals(content, Files.readAllBytes(fetched));
+            // digest computed while downloading is recorded
+            assertEquals(checksum, ArchiveChecksum.read(fetched));
+
+            // archive not matching the expected checksum is discarded
+            ArchiveChecksum.discard(fetched);
+            assertFalse(ArchiveMirror.fetch(peer, "java", "11.0.3-zulu", clientArchives, "0000"));
+            assertFalse(Files.exists(fetched));
+
+            // not in the mirror
+            assertFalse(ArchiveMirror.fetch(peer, "java", "12.0.1-zulu", clientArchives, checksum));
+            // invalid names are never requested
+            assertFalse(ArchiveMirror.fetch(peer, "java", "../java-11.0.3-zulu", clientArchives, checksum));
+            HttpURLConnection connection = (HttpURLConnection) new URL(peer + "/archives/java/..%2Fjava-11.0.3-zulu").openConnection();
+            assertEquals(400, connection.getResponseCode());
+
+            try (var stream = Files.list(clientArchives)) {
+                // no partial file left behind
+                assertEquals(0, stream.count());
+            }
+        } finally {
+            ArchiveChecksum.discard(fetched);
+            ArchiveChecksum.discard(served);
+            Files.deleteIfExists(clientArchives);
+            Files.deleteIfExists(serverArchives);
+        }
+        // peer not available
+        assertFalse(ArchiveMirror.fetch(URI.create("http://127.0.0.1:1"), "java", "11.0.3-zulu", clientArchives, "0000"));
+    }
+}
@@ -0,0 +1,41 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CDSArchiveTest {
+
+    @Test
+    void find() throws IOException {
+        Path home = Files.createTempDirectory("shogunCDS");
+        Path archive = home.resolve("jre/lib/amd64/server/classes.jsa");
+        try {
+            assertNull(CDSArchive.find(home));
+            Files.createDirectories(archive.getParent());
+            Files.createFile(archive);
+            assertEquals(archive, CDSArchive.find(home));
+        } finally {
+            Tombstone.deleteRecursively(home);
+        }
+    }
+
+    @Test
+    void alreadyExists() {
+        // the JDK running this test ships the default CDS archive
+        Path home = Path.of(System.getProperty("java.home"));
+        if (CDSArchive.find(home) != null) {
+            Version current = new Version("java", false, "current", "installed") {
+                @Override
+                public String getPath() {
+                    return home.toString();
+                }
+            };
+            assertEquals(CDSArchive.Result.Status.ALREADY_EXISTS, CDSArchive.generate(current).getStatus());
+        }
+    }
+}
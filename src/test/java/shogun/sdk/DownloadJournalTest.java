@@ -0,0 +1,66 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadJournalTest {
+
+    @Test
+    void complete() {
+        DownloadJournal journal = new DownloadJournal(Path.of("journal"), 100, "\"v1\"");
+        assertEquals("[0-99]", missing(journal));
+        journal.complete(10, 19);
+        journal.complete(40, 49);
+        assertEquals("[0-9, 20-39, 50-99]", missing(journal));
+        // adjacent and overlapping ranges are merged
+        journal.complete(20, 29);
+        journal.complete(45, 59);
+        assertEquals("[0-9, 30-39, 60-99]", missing(journal));
+        assertEquals(40, journal.getCompletedBytes());
+        // out of the archive
+        journal.complete(90, 100);
+        journal.complete(5, 4);
+        assertEquals(40, journal.getCompletedBytes());
+        journal.complete(0, 99);
+        assertEquals("[]", missing(journal));
+        assertEquals(100, journal.getCompletedBytes());
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        Path dir = Files.createTempDirectory("shogunJournal");
+        Path path = DownloadJournal.of(dir.resolve("java-11.0.3-zulu.zip.part"));
+        try {
+            assertEquals("java-11.0.3-zulu.zip.part.journal", path.getFileName().toString());
+            assertNull(DownloadJournal.read(path));
+            DownloadJournal journal = new DownloadJournal(path, 100, "Wed, 21 Oct 2015 07:28:00 GMT");
+            journal.complete(10, 19);
+            journal.complete(40, 49);
+            journal.write();
+            assertEquals(List.of("100 Wed, 21 Oct 2015 07:28:00 GMT", "10-19", "40-49"), Files.readAllLines(path));
+
+            DownloadJournal read = DownloadJournal.read(path);
+            assertNotNull(read);
+            assertEquals(100, read.getLength());
+            assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", read.getValidator());
+            assertEquals("[0-9, 20-39, 50-99]", missing(read));
+
+            Files.writeString(path, "broken\n");
+            assertNull(DownloadJournal.read(path));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static String missing(DownloadJournal journal) {
+        return journal.missing().stream().map(e -> e[0] + "-" + e[1]).collect(Collectors.toList()).toString();
+    }
+}
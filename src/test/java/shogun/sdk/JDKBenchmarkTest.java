@@ -0,0 +1,56 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JDKBenchmarkTest {
+
+    @Test
+    void run() throws IOException {
+        Path dir = Files.createTempDirectory("shogunBenchmark");
+        Path file = dir.resolve("jdk-benchmark.txt");
+        try {
+            // the JDK running this test
+            Version current = new Version("java", false, "current", "installed") {
+                @Override
+                public String getPath() {
+                    return System.getProperty("java.home");
+                }
+            };
+            Version missing = new Version("java", false, "missing", "installed") {
+                @Override
+                public String getPath() {
+                    return dir.resolve("missing").toString();
+                }
+            };
+            JDKBenchmark benchmark = new JDKBenchmark(file);
+            assertTrue(benchmark.load().isEmpty());
+            List<JDKBenchmark.Result> progress = new ArrayList<>();
+            List<JDKBenchmark.Result> results = benchmark.run(List.of(current, missing), 1, progress::add);
+            assertEquals(1, results.size());
+            assertEquals(results, progress);
+
+            JDKBenchmark.Result result = results.get(0);
+            assertEquals("current", result.getIdentifier());
+            assertTrue(0 < result.getJavaVersionMillis());
+            if (Files.exists(JDKBenchmark.executable(Path.of(System.getProperty("java.home")), "javac"))) {
+                assertTrue(0 < result.getHelloMillis());
+                assertTrue(0 < result.getHelloWithoutCDSMillis());
+            }
+
+            Map<String, JDKBenchmark.Result> loaded = benchmark.load();
+            assertEquals(result.toString(), loaded.get("current").toString());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
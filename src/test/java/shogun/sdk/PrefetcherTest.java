@@ -0,0 +1,58 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetcherTest {
+
+    @Test
+    void newerInLine() throws IOException, URISyntaxException {
+        VersionIndex java = new VersionIndex(new SDK().parseVersions("java", read("list-java.txt")));
+        // same major of the same dist
+        assertEquals("8.0.212-zulu", Prefetcher.newerInLine(java, "8.0.202-zulu").orElseThrow().getIdentifier());
+        assertEquals(Optional.empty(), Prefetcher.newerInLine(java, "8.0.212-zulu"));
+        assertEquals(Optional.empty(), Prefetcher.newerInLine(java, "12.0.1-zulu"));
+        assertEquals(Optional.empty(), Prefetcher.newerInLine(java, "unknown"));
+
+        VersionIndex maven = new VersionIndex(new SDK().parseVersions("maven", read("list-maven.txt")));
+        assertEquals("3.6.1", Prefetcher.newerInLine(maven, "3.5.3").orElseThrow().getIdentifier());
+        assertEquals(Optional.empty(), Prefetcher.newerInLine(maven, "2.2.1"));
+    }
+
+    @Test
+    void currentIdentifierAndUsage() throws IOException {
+        Path dir = Files.createTempDirectory("shogunPrefetch");
+        try {
+            Path candidateDir = Files.createDirectories(dir.resolve("candidates").resolve("maven"));
+            assertNull(Prefetcher.currentIdentifier(candidateDir));
+            Files.createDirectories(candidateDir.resolve("3.5.3"));
+            Files.createSymbolicLink(candidateDir.resolve("current"), Paths.get("3.5.3"));
+            assertEquals("3.5.3", Prefetcher.currentIdentifier(candidateDir));
+
+            Path archives = dir.resolve("archives");
+            assertEquals(0, Prefetcher.usage(archives));
+            Files.createDirectories(archives);
+            Files.write(archives.resolve("maven-3.6.1.zip"), new byte[100]);
+            // partial downloads count
+            Files.write(archives.resolve("java-11.0.3-zulu.zip.part"), new byte[20]);
+            assertEquals(120, Prefetcher.usage(archives));
+        } finally {
+            try (var stream = Files.walk(dir)) {
+                stream.sorted(Collections.reverseOrder()).forEach(e -> e.toFile().delete());
+            }
+        }
+    }
+
+    private static String read(String name) throws IOException, URISyntaxException {
+        return Files.readString(Paths.get(PrefetcherTest.class.getResource("/shogun/" + name).toURI()));
+    }
+}
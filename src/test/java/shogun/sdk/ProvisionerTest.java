@@ -0,0 +1,99 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProvisionerTest {
+
+    @Test
+    void parse() {
+        List<Provisioner.Entry> entries = Provisioner.parse(List.of(
+                "# toolchains for CI",
+                "java 11.0.3-zulu",
+                "",
+                "  java   12.0.1-zulu   default  ",
+                "maven 3.6.1 default"));
+        assertEquals("[java 11.0.3-zulu, java 12.0.1-zulu default, maven 3.6.1 default]", entries.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> Provisioner.parse(List.of("java")));
+        assertThrows(IllegalArgumentException.class, () -> Provisioner.parse(List.of("java 11.0.3-zulu defualt")));
+        assertThrows(IllegalArgumentException.class, () -> Provisioner.parse(List.of("java 11;rm -rf ~")));
+        assertThrows(IllegalArgumentException.class, () -> Provisioner.parse(List.of("java current")));
+        assertThrows(IllegalArgumentException.class, () -> Provisioner.parse(List.of("java 11.0.3-zulu", "java 11.0.3-zulu")));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Provisioner.parse(List.of("java 11.0.3-zulu default", "java 12.0.1-zulu default")));
+        assertTrue(e.getMessage().startsWith("line 2:"));
+    }
+
+    @Test
+    void provision() throws InterruptedException {
+        Set<String> installed = ConcurrentHashMap.newKeySet();
+        installed.add("gradle 5.5");
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        // java and maven have to be installed at the same time to pass
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Provisioner provisioner = new Provisioner(4,
+                e -> installed.contains(e.getCandidate() + " " + e.getIdentifier()),
+                e -> {
+                    String name = e.getCandidate() + " " + e.getIdentifier();
+                    log.add("install " + name);
+                    if (name.equals("java 11.0.3-zulu") || name.equals("maven 3.6.1")) {
+                        bothStarted.countDown();
+                        try {
+                            assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                    if (name.equals("maven 3.6.0")) {
+                        throw new IllegalStateException("download failed");
+                    }
+                    if (!name.equals("ant 1.10.1")) {
+                        installed.add(name);
+                    }
+                },
+                e -> log.add("default " + e.getCandidate() + " " + e.getIdentifier()));
+
+        List<Provisioner.Result> results = provisioner.provision(Provisioner.parse(List.of(
+                "java 11.0.3-zulu",
+                "maven 3.6.1",
+                "java 12.0.1-zulu default",
+                "maven 3.6.0 default",
+                "gradle 5.5 default",
+                "ant 1.10.1")));
+        assertEquals(0, bothStarted.getCount());
+
+        assertEquals(List.of(Provisioner.Result.Status.INSTALLED, Provisioner.Result.Status.INSTALLED,
+                Provisioner.Result.Status.INSTALLED, Provisioner.Result.Status.FAILED,
+                Provisioner.Result.Status.ALREADY_INSTALLED, Provisioner.Result.Status.FAILED),
+                results.stream().map(Provisioner.Result::getStatus).collect(Collectors.toList()));
+        assertEquals(List.of(true, true, true, false, true, false),
+                results.stream().map(Provisioner.Result::isSucceeded).collect(Collectors.toList()));
+        assertTrue(results.get(2).isDefaultSet());
+        assertTrue(results.get(4).isDefaultSet());
+        assertEquals("download failed", results.get(3).getMessage());
+        assertEquals("not installed by sdk install", results.get(5).getMessage());
+
+        // versions of a candidate are installed in the order listed, then the default is set
+        List<String> javaLog = log.stream().filter(e -> e.contains("java")).collect(Collectors.toList());
+        assertEquals(List.of("install java 11.0.3-zulu", "install java 12.0.1-zulu", "default java 12.0.1-zulu"), javaLog);
+        assertFalse(log.contains("default maven 3.6.0"));
+
+        String json = Provisioner.toJson(results);
+        assertTrue(json.startsWith("{\n  \"succeeded\": false,\n  \"results\": [\n"));
+        assertTrue(json.contains("{\"candidate\": \"java\", \"identifier\": \"12.0.1-zulu\", \"status\": \"INSTALLED\", \"default\": true, \"millis\": "));
+        assertTrue(json.contains("\"status\": \"FAILED\", \"default\": false, \"millis\": "));
+        assertTrue(json.contains("\"message\": \"download failed\"}"));
+        assertEquals("{\n  \"succeeded\": true,\n  \"results\": []\n}\n", Provisioner.toJson(List.of()));
+    }
+}
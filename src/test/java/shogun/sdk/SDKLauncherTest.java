@@ -77,5 +77,19 @@ class SDKLauncherTest {
 
     }
 
+    @Test
+    void summarize() {
+        assertEquals("short", SDKLauncher.summarize("short", 5));
+        assertEquals("line1... (17 chars, 3 lines in total)", SDKLauncher.summarize("line1\nline2\nline3", 5));
+    }
 
-}
\ No newline at end of file
+    @Test
+    void commandType() {
+        assertEquals("sdk list", SDKLauncher.commandType("source /home/duke/.sdkman/bin/sdkman-init.sh;sdk list java"));
+        assertEquals("sdk version", SDKLauncher.commandType("source /home/duke/.sdkman/bin/sdkman-init.sh;sdk version"));
+        assertEquals("sdk install", SDKLauncher.commandType("source /home/duke/.sdkman/bin/sdkman-init.sh;"
+                + "__sdkman_secure_curl_download() { ln -f a \"$3\"; };sdk install java 11.0.3-zulu"));
+        assertEquals("java", SDKLauncher.commandType("/Library/Java/JavaVirtualMachines/jdk-11/Contents/Home/bin/java -version"));
+        assertEquals("java", SDKLauncher.commandType("/opt/jdk/bin/java", "-Xshare:dump"));
+    }
+}
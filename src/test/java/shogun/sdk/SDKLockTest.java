@@ -0,0 +1,53 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SDKLockTest {
+
+    @Test
+    void acquire() throws IOException, InterruptedException, ExecutionException {
+        Path dir = Files.createTempDirectory("shogunLock");
+        Path lockFile = dir.resolve("java.lock");
+        try {
+            try (SDKLock lock = SDKLock.acquire(lockFile, "java", 100)) {
+                // reentrant in the same thread
+                try (SDKLock reentered = SDKLock.acquire(lockFile, "java", 100)) {
+                    assertNotNull(reentered);
+                }
+                // other threads have to wait
+                CompletableFuture<Throwable> other = CompletableFuture.supplyAsync(() -> {
+                    try (SDKLock ignored = SDKLock.acquire(lockFile, "java", 100)) {
+                        return null;
+                    } catch (SDKBusyException e) {
+                        return e;
+                    }
+                });
+                Throwable busy = other.get();
+                assertTrue(busy instanceof SDKBusyException);
+                assertEquals("java", ((SDKBusyException) busy).getResource());
+            }
+            // released. the file lock is also available for other processes
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE);
+                 FileLock fileLock = channel.tryLock()) {
+                assertNotNull(fileLock);
+            }
+            try (SDKLock lock = SDKLock.acquire(lockFile, "java", 100)) {
+                assertNotNull(lock);
+            }
+        } finally {
+            Files.deleteIfExists(lockFile);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -9,7 +9,9 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +35,125 @@ class SDKTest {
         }
     }
 
+    @Test
+    void uninstallInvalidVersion() {
+        SDK sdk = new SDK();
+        for (String identifier : new String[]{"", ".", "..", "current", "../java", "11 ;rm"}) {
+            assertThrows(IllegalArgumentException.class, () -> sdk.uninstall("java", identifier), identifier);
+        }
+        assertThrows(IllegalArgumentException.class, () -> sdk.uninstall("..", "11.0.3-zulu"));
+    }
+
+    @Test
+    void isLinkedTo() throws IOException {
+        Path root = Files.createTempDirectory("shogunCandidates");
+        Path candidateDir = root.resolve("java");
+        Path versionDir = Files.createDirectories(candidateDir.resolve("11.0.3-zulu"));
+        Path otherDir = Files.createDirectories(candidateDir.resolve("12.0.1-zulu"));
+        Path current = candidateDir.resolve("current");
+        Path alias = root.resolve("alias");
+        try {
+            assertFalse(SDK.isLinkedTo(current, versionDir));
+
+            Files.createSymbolicLink(current, versionDir);
+            assertTrue(SDK.isLinkedTo(current, versionDir));
+            assertFalse(SDK.isLinkedTo(current, otherDir));
+            Files.delete(current);
+
+            // relative link
+            Files.createSymbolicLink(current, Paths.get("11.0.3-zulu"));
+            assertTrue(SDK.isLinkedTo(current, versionDir));
+            Files.delete(current);
+
+            // SDKMAN_DIR reached through another path
+            Files.createSymbolicLink(alias, root);
+            Files.createSymbolicLink(current, alias.resolve("java").resolve("11.0.3-zulu"));
+            assertTrue(SDK.isLinkedTo(current, versionDir));
+            assertFalse(SDK.isLinkedTo(current, otherDir));
+        } finally {
+            Files.deleteIfExists(current);
+            Files.deleteIfExists(alias);
+            Files.deleteIfExists(versionDir);
+            Files.deleteIfExists(otherDir);
+            Files.deleteIfExists(candidateDir);
+            Files.deleteIfExists(root);
+        }
+    }
+
+    @Test
+    void resolveSDK_MAN_DIR() throws IOException {
+        Path home = Files.createTempDirectory("shogunHome");
+        Path customDir = Files.createTempDirectory("shogunSDKMAN");
+        Path persisted = home.resolve("Shogun").resolve("sdkman-dir");
+        try {
+            // environment variable comes first
+            assertEquals(customDir.toString(), SDK.resolveSDK_MAN_DIR(Map.of("SDKMAN_DIR", customDir.toString()), home.toString(), persisted,
+                    () -> fail("shell should not be used")));
+            assertEquals(customDir.toString(), Files.readString(persisted));
+
+            // then the value persisted last time
+            assertEquals(customDir.toString(), SDK.resolveSDK_MAN_DIR(Map.of(), home.toString(), persisted,
+                    () -> fail("shell should not be used")));
+
+            // ~/.sdkman is preferred over the persisted value
+            Path defaultDir = Files.createDirectory(home.resolve(".sdkman"));
+            assertEquals(defaultDir.toString(), SDK.resolveSDK_MAN_DIR(Map.of(), home.toString(), persisted,
+                    () -> fail("shell should not be used")));
+            Files.delete(defaultDir);
+
+            // shell is the last resort
+            Files.delete(persisted);
+            assertEquals(customDir.toString(), SDK.resolveSDK_MAN_DIR(Map.of(), home.toString(), persisted, customDir::toString));
+
+            // not installed
+            Files.delete(persisted);
+            assertEquals(home.resolve(".sdkman").toString(), SDK.resolveSDK_MAN_DIR(Map.of(), home.toString(), persisted, () -> ""));
+            assertFalse(Files.exists(persisted));
+        } finally {
+            Files.deleteIfExists(persisted);
+            Files.deleteIfExists(persisted.getParent());
+            Files.deleteIfExists(home);
+            Files.deleteIfExists(customDir);
+        }
+    }
+
+    @Test
+    void linkCurrent() throws IOException {
+        Path candidateDir = Files.createTempDirectory("shogunCandidate");
+        Path version1 = Files.createDirectory(candidateDir.resolve("1.0"));
+        Path version2 = Files.createDirectory(candidateDir.resolve("2.0"));
+        Path current = candidateDir.resolve("current");
+        try {
+            // no current yet
+            assertTrue(SDK.linkCurrent(candidateDir, "1.0"));
+            assertEquals(version1, Files.readSymbolicLink(current));
+
+            assertTrue(SDK.linkCurrent(candidateDir, "2.0"));
+            assertEquals(version2, Files.readSymbolicLink(current));
+            try (var stream = Files.list(candidateDir)) {
+                // no temporary link left behind
+                assertEquals(3, stream.count());
+            }
+
+            try {
+                SDK.linkCurrent(candidateDir, "3.0");
+                fail("should throw IllegalStateException");
+            } catch (IllegalStateException ignore) {
+            }
+            assertEquals(version2, Files.readSymbolicLink(current));
+
+            // unexpected layout
+            Files.delete(current);
+            Files.createDirectory(current);
+            assertFalse(SDK.linkCurrent(candidateDir, "1.0"));
+        } finally {
+            Files.deleteIfExists(current);
+            Files.deleteIfExists(version1);
+            Files.deleteIfExists(version2);
+            Files.deleteIfExists(candidateDir);
+        }
+    }
+
     @Test
     void install() {
         SDK sdk = new SDK();
@@ -230,6 +351,40 @@ class SDKTest {
 
     }
 
+    @Test
+    void registerAll() throws IOException {
+        SDK sdk = new SDK();
+        assumeTrue(sdk.isInstalled());
+        Path javaDir = Paths.get(SDK.getSDK_MAN_DIR(), "candidates", "java");
+        File jdk1 = Files.createTempDirectory("dummyJDK").toFile();
+        File jdk2 = Files.createTempDirectory("dummyJDK").toFile();
+        try {
+            List<RegistrationResult> results = sdk.registerAll(List.of(
+                    new NotRegisteredVersion("Shogun", "1.0", "shogun1", "1.0-shogun1", jdk1),
+                    new NotRegisteredVersion("Shogun", "2.0", "shogun2", "2.0-shogun2", jdk2),
+                    new NotRegisteredVersion("Shogun", "2.0", "shogun2", "2.0-shogun2", jdk1),
+                    new NotRegisteredVersion("Shogun", "3.0", "../shogun", "3.0-../shogun", jdk1),
+                    new NotRegisteredVersion("Shogun", "4.0", "shogun4", "4.0-shogun4", new File(jdk1, "missing"))));
+            assertEquals(5, results.size());
+            assertEquals(RegistrationResult.Status.REGISTERED, results.get(0).getStatus());
+            assertEquals(RegistrationResult.Status.REGISTERED, results.get(1).getStatus());
+            assertEquals(RegistrationResult.Status.ALREADY_REGISTERED, results.get(2).getStatus());
+            assertEquals(RegistrationResult.Status.INVALID_IDENTIFIER, results.get(3).getStatus());
+            assertEquals(RegistrationResult.Status.INVALID_PATH, results.get(4).getStatus());
+            assertEquals(jdk1.toPath().toAbsolutePath(), Files.readSymbolicLink(javaDir.resolve("1.0-shogun1")));
+            assertEquals(jdk2.toPath().toAbsolutePath(), Files.readSymbolicLink(javaDir.resolve("2.0-shogun2")));
+
+            List<RegistrationResult> again = sdk.registerAll(List.of(
+                    new NotRegisteredVersion("Shogun", "1.0", "shogun1", "1.0-shogun1", jdk1)));
+            assertEquals(RegistrationResult.Status.ALREADY_REGISTERED, again.get(0).getStatus());
+        } finally {
+            Files.deleteIfExists(javaDir.resolve("1.0-shogun1"));
+            Files.deleteIfExists(javaDir.resolve("2.0-shogun2"));
+            Files.deleteIfExists(jdk1.toPath());
+            Files.deleteIfExists(jdk2.toPath());
+        }
+    }
+
     @Test
     void candidates() {
         SDK sdk = new SDK();
@@ -347,6 +502,34 @@ class SDKTest {
         assertTrue(sdk2.isOffline());
     }
 
+    @Test
+    void status() throws URISyntaxException, IOException {
+        String offlineResponse = Files.readString(Paths.get(SDKTest.class.getResource("/shogun/offline.txt").toURI()));
+        String updateResponse = Files.readString(Paths.get(SDKTest.class.getResource("/shogun/version-require-update.txt").toURI()));
+        SDK sdk = new SDK();
+        assertFalse(sdk.isOffline());
+        assertFalse(sdk.isUpdateAvailable());
+
+        SDKStatus offline = sdk.checkStatus(offlineResponse);
+        SDKStatus update = sdk.checkStatus(updateResponse);
+        // each call keeps its own status
+        assertTrue(offline.isOffline());
+        assertFalse(update.isOffline());
+        assertTrue(update.isUpdateAvailable());
+        assertEquals(update, sdk.getStatus());
+
+        // status observed earlier doesn't override newer one
+        SDKStatus stale = new SDKStatus(true, false, Instant.EPOCH);
+        assertEquals(update, sdk.getStatus().newer(stale));
+        assertEquals(update, stale.newer(sdk.getStatus()));
+
+        // a slow command finishing last doesn't override the status of a command started after it
+        Instant slowStartedAt = Instant.now().minusSeconds(10);
+        SDKStatus slow = sdk.checkStatus(offlineResponse, slowStartedAt);
+        assertEquals(slowStartedAt, slow.getObservedAt());
+        assertEquals(update, sdk.getStatus());
+    }
+
     @Test
     void version() throws IOException {
 
@@ -0,0 +1,416 @@
+package shogun.sdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedDownloaderTest {
+    private static final Pattern range = Pattern.compile("^bytes=(\\d+)-(\\d+)$");
+
+    @Test
+    void download() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(3 * 1024 * 1024 + 7), true)) {
+            List<String> progress = Collections.synchronizedList(new ArrayList<>());
+            List<String> headers = new SegmentedDownloader(4, 1024 * 1024).download(stub.uri(), target,
+                    SegmentedDownloader.percentage(progress::add));
+            assertArrayEquals(stub.content, Files.readAllBytes(target));
+            // reported as sdk install does, once per change
+            assertTrue(progress.contains("100.0%"));
+            assertEquals(progress.size(), new HashSet<>(progress).size());
+            // headers of the broker are kept across the redirect. the stub server changes the case of the name
+            assertEquals(1, headers.size());
+            assertTrue(headers.get(0).equalsIgnoreCase(ArchiveChecksum.HEADER + ": " + stub.checksum));
+            // verified digest is recorded
+            assertEquals(stub.checksum, ArchiveChecksum.read(target));
+            // probe, then 4 segments
+            assertEquals(5, stub.ranges.size());
+            assertEquals("bytes=0-0", stub.ranges.get(0));
+            assertTrue(stub.ranges.contains("bytes=0-786433"));
+            assertTrue(stub.ranges.contains("bytes=2359302-3145734"));
+
+            // small archives are not split
+            stub.ranges.clear();
+            new SegmentedDownloader(4, stub.content.length).download(stub.uri(), target);
+            assertArrayEquals(stub.content, Files.readAllBytes(target));
+            assertEquals(List.of("bytes=0-0", "bytes=0-3145734"), stub.ranges);
+            // neither the part file nor the journal is left behind
+            assertEquals(List.of("java-11.0.3-zulu.zip", "java-11.0.3-zulu.zip.sha256"), list(dir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void checksumNotPublished() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(1024 * 1024), true)) {
+            stub.checksum = null;
+            new SegmentedDownloader(4, 1024).download(stub.uri(), target);
+            assertArrayEquals(stub.content, Files.readAllBytes(target));
+            // not recorded as verified
+            assertNull(ArchiveChecksum.read(target));
+            assertEquals(List.of("java-11.0.3-zulu.zip"), list(dir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void rangesNotSupported() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(1024 * 1024 + 7), false)) {
+            new SegmentedDownloader(4, 1024).download(stub.uri(), target);
+            assertArrayEquals(stub.content, Files.readAllBytes(target));
+            // the body of the probe is used
+            assertEquals(1, stub.ranges.size());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void retry() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(4 * 1024 * 1024), true)) {
+            // each segment of the first attempt stops half way
+            stub.truncated.set(4);
+            new SegmentedDownloader(4, 1024 * 1024, 1, 1).download(stub.uri(), target);
+            assertArrayEquals(stub.content, Files.readAllBytes(target));
+            assertEquals(10, stub.ranges.size());
+            // the retry continues from the middle of each segment
+            assertEquals("bytes=0-0", stub.ranges.get(5));
+            assertTrue(stub.ranges.containsAll(List.of("bytes=524288-1048575", "bytes=1572864-2097151",
+                    "bytes=2621440-3145727", "bytes=3670016-4194303")));
+            assertEquals(List.of("java-11.0.3-zulu.zip", "java-11.0.3-zulu.zip.sha256"), list(dir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void resume() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(4 * 1024 * 1024), true)) {
+            stub.truncated.set(4);
+            assertThrows(IOException.class, () -> new SegmentedDownloader(4, 1024 * 1024, 0, 1).download(stub.uri(), target));
+            // kept for the next attempt
+            assertEquals(List.of("java-11.0.3-zulu.zip.part", "java-11.0.3-zulu.zip.part.journal"), list(dir));
+            DownloadJournal journal = DownloadJournal.read(dir.resolve("java-11.0.3-zulu.zip.part.journal"));
+            assertNotNull(journal);
+            assertEquals(stub.content.length / 2, journal.getCompletedBytes());
+            assertEquals(stub.etag, journal.getValidator());
+
+            stub.ranges.clear();
+            new SegmentedDownloader(4, 1024 * 1024, 0, 1).download(stub.uri(), target);
+            assertArrayEquals(stub.content, Files.readAllBytes(target));
+            assertEquals(5, stub.ranges.size());
+            assertFalse(stub.ranges.contains("bytes=0-1048575"));
+            assertEquals(List.of("java-11.0.3-zulu.zip", "java-11.0.3-zulu.zip.sha256"), list(dir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void changed() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(4 * 1024 * 1024), true)) {
+            stub.truncated.set(4);
+            assertThrows(IOException.class, () -> new SegmentedDownloader(4, 1024 * 1024, 0, 1).download(stub.uri(), target));
+        }
+        // the ranges on disk are of another version of the archive
+        byte[] changed = content(4 * 1024 * 1024);
+        changed[0]++;
+        try (Stub stub = new Stub(changed, true)) {
+            stub.etag = "\"v2\"";
+            new SegmentedDownloader(4, 1024 * 1024, 0, 1).download(stub.uri(), target);
+            assertArrayEquals(changed, Files.readAllBytes(target));
+            assertTrue(stub.ranges.contains("bytes=0-1048575"));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void checksumMismatch() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(1024 * 1024), true)) {
+            stub.checksum = "0123";
+            assertThrows(IOException.class, () -> new SegmentedDownloader(4, 1024, 3, 1).download(stub.uri(), target));
+            // not retried, and nothing is left
+            assertEquals(5, stub.ranges.size());
+            assertEquals(List.of(), list(dir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void paused() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(4 * 1024 * 1024), true)) {
+            AtomicBoolean paused = new AtomicBoolean(true);
+            SegmentedDownloader downloader = new SegmentedDownloader(4, 1024 * 1024, 3, 1, null, paused::get, Long.MAX_VALUE);
+            assertThrows(SegmentedDownloader.PausedException.class, () -> downloader.download(stub.uri(), target));
+            // not retried, and kept to be continued
+            assertEquals(5, stub.ranges.size());
+            assertEquals(List.of("java-11.0.3-zulu.zip.part", "java-11.0.3-zulu.zip.part.journal"), list(dir));
+
+            paused.set(false);
+            downloader.download(stub.uri(), target);
+            assertArrayEquals(stub.content, Files.readAllBytes(target));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void pausedDuringBackoff() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (Stub stub = new Stub(content(4 * 1024 * 1024), true)) {
+            stub.truncated.set(4);
+            AtomicBoolean paused = new AtomicBoolean();
+            SegmentedDownloader downloader = new SegmentedDownloader(4, 1024 * 1024, 3, 60_000, null, paused::get, Long.MAX_VALUE);
+            scheduler.schedule(() -> paused.set(true), 1, TimeUnit.SECONDS);
+            // stops without waiting for the minute of backoff
+            assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> assertThrows(SegmentedDownloader.PausedException.class, () -> downloader.download(stub.uri(), target)));
+            assertEquals(5, stub.ranges.size());
+            assertEquals(List.of("java-11.0.3-zulu.zip.part", "java-11.0.3-zulu.zip.part.journal"), list(dir));
+        } finally {
+            scheduler.shutdownNow();
+            delete(dir);
+        }
+    }
+
+    @Test
+    void tooLarge() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path target = dir.resolve("java-11.0.3-zulu.zip");
+        try (Stub stub = new Stub(content(1024 * 1024), true)) {
+            assertThrows(IOException.class, () -> new SegmentedDownloader(4, 1024, 3, 1, null, () -> false,
+                    stub.content.length - 1).download(stub.uri(), target));
+            // only the probe
+            assertEquals(1, stub.ranges.size());
+            assertEquals(List.of(), list(dir));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void inOrderDigest() throws IOException {
+        Path dir = Files.createTempDirectory("shogunDownload");
+        Path part = dir.resolve("java-11.0.3-zulu.zip.part");
+        byte[] content = content(1024 * 1024);
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            SegmentedDownloader.InOrderDigest digest = new SegmentedDownloader.InOrderDigest(ArchiveChecksum.newDigest(), channel);
+            // already on disk from an earlier attempt
+            channel.write(ByteBuffer.wrap(content, 0, 1000), 0);
+            digest.written(0, 1000);
+            // written ahead of the hashed position, then caught up once the gap is filled
+            for (int first : new int[]{600_000, 300_000, 1000, 900_000}) {
+                int length = first == 1000 ? 299_000 : 300_000;
+                length = Math.min(length, content.length - first);
+                byte[] piece = Arrays.copyOfRange(content, first, first + length);
+                channel.write(ByteBuffer.wrap(piece), first);
+                digest.written(first, piece, piece.length);
+            }
+            assertThrows(IOException.class, () -> digest.checksum(content.length + 1));
+            assertEquals(ArchiveChecksum.toHex(ArchiveChecksum.newDigest().digest(content)), digest.checksum(content.length));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    void throttle() throws IOException {
+        SegmentedDownloader.Throttle throttle = new SegmentedDownloader.Throttle(1024 * 1024);
+        long start = System.nanoTime();
+        for (int i = 0; i < 8; i++) {
+            throttle.acquire(64 * 1024);
+        }
+        // 512KB at 1MB/s
+        assertTrue(450 <= TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Test
+    void published() throws IOException {
+        try (Stub stub = new Stub(content(1024), true)) {
+            // sent with the redirect of the broker. nothing is downloaded
+            assertEquals(stub.checksum, SegmentedDownloader.published(stub.uri()));
+            assertEquals(List.of(), stub.ranges);
+            stub.checksum = null;
+            assertNull(SegmentedDownloader.published(stub.uri()));
+        }
+    }
+
+    @Test
+    void parseContentRange() throws IOException {
+        assertEquals(1234, SegmentedDownloader.parseContentRange("bytes 0-0/1234", 0, 0));
+        assertEquals(1234, SegmentedDownloader.parseContentRange("bytes 10-19/1234", 10, 19));
+        assertThrows(IOException.class, () -> SegmentedDownloader.parseContentRange("bytes 10-19/1234", 0, 19));
+        assertThrows(IOException.class, () -> SegmentedDownloader.parseContentRange("bytes 0-0/*", 0, 0));
+        assertThrows(IOException.class, () -> SegmentedDownloader.parseContentRange(null, 0, 0));
+    }
+
+    @Test
+    void handOffArchive() throws IOException, InterruptedException {
+        assertEquals("", SDK.handOffArchive(Path.of("no-such-archive.zip")));
+        Path sdkmanDir = Files.createTempDirectory("shogunSDKMAN");
+        Path archive = Files.createDirectories(sdkmanDir.resolve("archives")).resolve("java-11.0.3-zulu.zip");
+        Files.writeString(archive, "archive");
+        Files.writeString(Files.createDirectories(sdkmanDir.resolve("var").resolve("metadata")).resolve("java-11.0.3-zulu.headers"), "X-Sdkman-Checksum-SHA-256: 0123\n");
+        Path tmp = Files.createDirectories(sdkmanDir.resolve("tmp"));
+        try {
+            // without the checksum sdk install downloads the archive itself
+            assertEquals("", SDK.handOffArchive(sdkmanDir.resolve("archives").resolve("java-12.0.1-zulu.zip")));
+            Files.writeString(sdkmanDir.resolve("archives").resolve("java-12.0.1-zulu.zip"), "archive");
+            Files.writeString(sdkmanDir.resolve("var").resolve("metadata").resolve("java-12.0.1-zulu.headers"), "X-Sdkman-ArchiveType: zip\n");
+            assertEquals("", SDK.handOffArchive(sdkmanDir.resolve("archives").resolve("java-12.0.1-zulu.zip")));
+
+            // called the way sdk install downloads the archive
+            ProcessBuilder builder = new ProcessBuilder("bash", "-c", SDK.handOffArchive(archive)
+                    + "__sdkman_secure_curl_download https://broker.sdkman.io/download/java/11.0.3-zulu/linuxx64"
+                    + " --output \"${SDKMAN_DIR}/tmp/java-11.0.3-zulu.bin\" --dump-header \"${SDKMAN_DIR}/tmp/java-11.0.3-zulu.headers.tmp\"")
+                    .inheritIO().redirectInput(ProcessBuilder.Redirect.PIPE);
+            builder.environment().put("SDKMAN_DIR", sdkmanDir.toString());
+            assertEquals(0, builder.start().waitFor());
+            assertEquals("archive", Files.readString(tmp.resolve("java-11.0.3-zulu.bin")));
+            assertTrue(Files.isSameFile(archive, tmp.resolve("java-11.0.3-zulu.bin")));
+            assertEquals("X-Sdkman-Checksum-SHA-256: 0123\n", Files.readString(tmp.resolve("java-11.0.3-zulu.headers.tmp")));
+        } finally {
+            try (var stream = Files.walk(sdkmanDir)) {
+                stream.sorted(Collections.reverseOrder()).forEach(e -> e.toFile().delete());
+            }
+        }
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(0).nextBytes(content);
+        return content;
+    }
+
+    private static List<String> list(Path dir) throws IOException {
+        try (var stream = Files.list(dir)) {
+            List<String> names = new ArrayList<>();
+            stream.forEach(e -> names.add(e.getFileName().toString()));
+            Collections.sort(names);
+            return names;
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (var stream = Files.walk(dir)) {
+            stream.sorted(Collections.reverseOrder()).forEach(e -> e.toFile().delete());
+        }
+    }
+
+    /**
+     * Stub server redirecting /download/* to /archive like the SDKMAN! broker, and serving the archive with ranges.
+     */
+    private static final class Stub implements AutoCloseable {
+        private final byte[] content;
+        private final boolean ranged;
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newFixedThreadPool(8);
+        // Range header of each request to the archive
+        private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+        // number of range responses to be closed half way
+        private final AtomicInteger truncated = new AtomicInteger();
+        private volatile String checksum;
+        private volatile String etag = "\"v1\"";
+
+        Stub(byte[] content, boolean ranged) throws IOException {
+            this.content = content;
+            this.ranged = ranged;
+            checksum = ArchiveChecksum.toHex(ArchiveChecksum.newDigest().digest(content));
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.setExecutor(executor);
+            server.createContext("/download/", exchange -> {
+                if (checksum != null) {
+                    exchange.getResponseHeaders().add(ArchiveChecksum.HEADER, checksum);
+                }
+                exchange.getResponseHeaders().add("Location", "/archive");
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+            });
+            server.createContext("/archive", this::handle);
+            server.start();
+        }
+
+        URI uri() {
+            return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/download/java/11.0.3-zulu/linuxx64");
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String header = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            ranges.add(header);
+            Matcher matcher = range.matcher(header == null ? "" : header);
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (!ranged || !matcher.matches() || (ifRange != null && !ifRange.equals(etag))) {
+                send(exchange, 200, 0, content.length);
+                return;
+            }
+            int first = Integer.parseInt(matcher.group(1));
+            int last = Math.min(content.length - 1, Integer.parseInt(matcher.group(2)));
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+            boolean truncate = first < last && 0 <= truncated.decrementAndGet();
+            send(exchange, 206, first, truncate ? (last - first + 1) / 2 : last - first + 1);
+        }
+
+        private void send(HttpExchange exchange, int status, int offset, int length) throws IOException {
+            exchange.sendResponseHeaders(status, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content, offset, length);
+            }
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
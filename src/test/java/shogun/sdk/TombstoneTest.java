@@ -0,0 +1,63 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TombstoneTest {
+
+    @Test
+    void buryAndPurge() throws IOException, InterruptedException {
+        Path root = Files.createTempDirectory("shogunTombstone");
+        Path graveyard = root.resolve("graveyard");
+        Path linked = Files.createDirectory(root.resolve("linked"));
+        Path linkedFile = Files.writeString(linked.resolve("keep.txt"), "keep");
+        try {
+            Path version = createTree(root.resolve("1.0"), linked);
+            Tombstone.bury(version, graveyard);
+            // disappears at once
+            assertFalse(Files.exists(version));
+            waitForEmpty(graveyard);
+            // symbolic links are not followed
+            assertTrue(Files.exists(linkedFile));
+
+            // deletion interrupted last time
+            Files.createDirectories(graveyard);
+            createTree(graveyard.resolve("2.0-1"), linked);
+            createTree(graveyard.resolve("3.0-2"), linked);
+            Tombstone.purge(graveyard);
+            waitForEmpty(graveyard);
+            assertTrue(Files.exists(linkedFile));
+        } finally {
+            Tombstone.deleteRecursively(root);
+        }
+        assertFalse(Files.exists(root));
+    }
+
+    private static Path createTree(Path dir, Path linked) throws IOException {
+        for (int i = 0; i < 5; i++) {
+            Path sub = Files.createDirectories(dir.resolve("lib" + i).resolve("nested"));
+            for (int j = 0; j < 20; j++) {
+                Files.writeString(sub.resolve("file" + j), "content");
+            }
+        }
+        Files.createSymbolicLink(dir.resolve("link"), linked);
+        return dir;
+    }
+
+    private static void waitForEmpty(Path graveyard) throws IOException, InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            try (var stream = Files.list(graveyard)) {
+                if (stream.findAny().isEmpty()) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+        fail("graveyard is not empty: " + graveyard);
+    }
+}
@@ -0,0 +1,70 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionCacheTest {
+
+    @Test
+    void saveAndLoad() throws IOException, URISyntaxException {
+        Path dir = Files.createTempDirectory("shogunVersionCache");
+        Path file = dir.resolve("version-cache.txt");
+        try {
+            SDK sdk = new SDK();
+            List<Version> javaVersions = sdk.parseVersions("java",
+                    Files.readString(Paths.get(VersionCacheTest.class.getResource("/shogun/list-java.txt").toURI())));
+            javaVersions.add(new NotRegisteredVersion("AdoptOpenJDK", "15.0.2", "adpt", "15.0.2-adpt", new File("/tmp/jdk-15.0.2/Contents/Home")));
+            List<Version> mavenVersions = sdk.parseVersions("maven",
+                    Files.readString(Paths.get(VersionCacheTest.class.getResource("/shogun/list-maven.txt").toURI())));
+            Map<String, List<Version>> versions = new LinkedHashMap<>();
+            versions.put("java", javaVersions);
+            versions.put("maven", mavenVersions);
+
+            VersionCache cache = new VersionCache(file);
+            assertTrue(cache.load().isEmpty());
+            cache.save("SDKMAN 5.7.3+337", versions);
+
+            VersionCache.Snapshot snapshot = cache.load();
+            assertEquals("SDKMAN 5.7.3+337", snapshot.getSdkManVersion());
+            assertEquals(List.of("java", "maven"), List.copyOf(snapshot.getVersions().keySet()));
+            assertEquals(javaVersions, snapshot.getVersions().get("java"));
+            assertEquals(mavenVersions, snapshot.getVersions().get("maven"));
+
+            JavaVersion adoptOpenJDK = (JavaVersion) snapshot.getVersions().get("java").get(0);
+            assertEquals("AdoptOpenJDK", adoptOpenJDK.getVendor());
+            assertEquals("adpt", adoptOpenJDK.getDist());
+            assertEquals("12.0.1.j9-adpt", adoptOpenJDK.getIdentifier());
+
+            Version detected = snapshot.getVersions().get("java").get(javaVersions.size() - 1);
+            assertTrue(detected.isDetected());
+            assertEquals(new File("/tmp/jdk-15.0.2/Contents/Home").getAbsolutePath(), detected.getPath());
+
+            assertEquals("installed", snapshot.getVersions().get("maven").get(0).getStatus());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void unknownFormat() throws IOException {
+        Path file = Files.createTempFile("shogunVersionCache", ".txt");
+        try {
+            Files.writeString(file, "something else\n");
+            assertTrue(new VersionCache(file).load().isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
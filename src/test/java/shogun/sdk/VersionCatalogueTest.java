@@ -0,0 +1,142 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionCatalogueTest {
+
+    @Test
+    void putAndGet() throws IOException, URISyntaxException {
+        SDK sdk = new SDK();
+        List<Version> javaVersions = sdk.parseVersions("java", read("list-java.txt"));
+        javaVersions.add(new NotRegisteredVersion("AdoptOpenJDK", "15.0.2", "adpt", "15.0.2-adpt", new File("/tmp/jdk-15.0.2/Contents/Home")));
+        List<Version> mavenVersions = sdk.parseVersions("maven", read("list-maven.txt"));
+
+        VersionCatalogue catalogue = new VersionCatalogue();
+        assertNull(catalogue.get("java"));
+        List<Version> javaView = catalogue.put("java", javaVersions);
+        catalogue.put("maven", mavenVersions);
+
+        assertEquals(javaVersions, javaView);
+        assertEquals(mavenVersions, catalogue.get("maven"));
+        for (int i = 0; i < javaVersions.size(); i++) {
+            Version expected = javaVersions.get(i);
+            Version actual = javaView.get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getIdentifier(), actual.getIdentifier());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.toString(), actual.toString());
+        }
+        Version detected = javaView.get(javaView.size() - 1);
+        assertTrue(detected.isDetected());
+        assertEquals(new File("/tmp/jdk-15.0.2/Contents/Home").getAbsolutePath(), detected.getPath());
+
+        // repeated strings are stored once
+        JavaVersion first = (JavaVersion) javaView.get(0);
+        JavaVersion second = (JavaVersion) javaView.get(1);
+        assertEquals(first.getVendor(), second.getVendor());
+        assertSame(first.getVendor(), second.getVendor());
+        Version installedJava = javaView.stream().filter(e -> e.getStatus().equals("installed")).findFirst().orElseThrow();
+        Version installedMaven = catalogue.get("maven").stream().filter(e -> e.getStatus().equals("installed")).findFirst().orElseThrow();
+        assertSame(installedJava.getStatus(), installedMaven.getStatus());
+        assertSame(catalogue.intern(new String("java")), javaView.get(0).getCandidate());
+
+        // replaced
+        catalogue.put("maven", mavenVersions.subList(0, 1));
+        assertEquals(1, catalogue.get("maven").size());
+        assertThrows(IndexOutOfBoundsException.class, () -> catalogue.get("maven").get(1));
+    }
+
+    @Test
+    void stringsOfReplacedVersionsAreDropped() {
+        VersionCatalogue catalogue = new VersionCatalogue();
+        catalogue.put("maven", List.of(new Version("maven", false, "3.6.1", "")));
+        List<Version> old = catalogue.put("gradle", List.of(new Version("gradle", true, "5.4", "installed")));
+        int count = catalogue.getStringCount();
+
+        // refreshed many times with other versions
+        for (int i = 0; i < 100; i++) {
+            catalogue.put("gradle", List.of(new Version("gradle", true, "5." + i, "installed")));
+        }
+        assertEquals(count, catalogue.getStringCount());
+        assertEquals("5.99", catalogue.get("gradle").get(0).getVersion());
+        assertTrue(catalogue.get("gradle").get(0).use);
+        assertEquals("3.6.1", catalogue.get("maven").get(0).getVersion());
+        // views returned earlier stay valid
+        assertEquals("5.4", old.get(0).getVersion());
+        assertEquals("installed", old.get(0).getStatus());
+        // not stored
+        String unknown = new String("5.4");
+        assertSame(unknown, catalogue.intern(unknown));
+    }
+
+    /**
+     * Compares the heap retained by the parsed lists of all candidates with the heap retained by the catalogue.
+     * The candidate set is held in several copies so that the difference stands out of the noise of heap usage.
+     */
+    @Test
+    void heapUsage() throws IOException, URISyntaxException {
+        SDK sdk = new SDK();
+        String javaList = read("list-java.txt");
+        String mavenList = read("list-maven.txt");
+        List<String> candidates = SDK.parseList(Arrays.asList(read("list.txt").split("\n")));
+        int copies = 200;
+        // load the classes involved before taking the baseline
+        new VersionCatalogue().put("java", sdk.parseVersions("java", javaList));
+
+        List<Map<String, List<Version>>> parsed = new ArrayList<>(copies);
+        List<VersionCatalogue> catalogues = new ArrayList<>(copies);
+        long baseline = usedHeap();
+        for (int i = 0; i < copies; i++) {
+            Map<String, List<Version>> versions = new LinkedHashMap<>();
+            for (String candidate : candidates) {
+                versions.put(candidate, sdk.parseVersions(candidate, candidate.equals("java") ? javaList : mavenList));
+            }
+            parsed.add(versions);
+        }
+        long parsedBytes = (usedHeap() - baseline) / copies;
+        int versions = parsed.get(0).values().stream().mapToInt(List::size).sum();
+
+        for (Map<String, List<Version>> e : parsed) {
+            VersionCatalogue catalogue = new VersionCatalogue();
+            e.forEach(catalogue::put);
+            catalogues.add(catalogue);
+        }
+        parsed.clear();
+        long catalogueBytes = (usedHeap() - baseline) / copies;
+
+        System.out.printf("%d versions of %d candidates, %d distinct strings: parsed lists %,d bytes, catalogue %,d bytes%n",
+                versions, candidates.size(), catalogues.get(0).getStringCount(), parsedBytes, catalogueBytes);
+        assertEquals(versions, candidates.stream().mapToInt(e -> catalogues.get(0).get(e).size()).sum());
+        assertTrue(catalogueBytes < parsedBytes);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // the lowest of several full collections
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    private static String read(String name) throws IOException, URISyntaxException {
+        return Files.readString(Paths.get(VersionCatalogueTest.class.getResource("/shogun/" + name).toURI()));
+    }
+}
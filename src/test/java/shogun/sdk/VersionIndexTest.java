@@ -0,0 +1,97 @@
+package shogun.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionIndexTest {
+
+    @Test
+    void sortKey() {
+        List<String> versions = Stream.of("170", "1.10", "17.0.1", "17", "1.9", "14.0.1", "14.ea.3", "17.0", "1.9.0", "01.9.1", "14")
+                .sorted((a, b) -> VersionIndex.sortKey(a).compareTo(VersionIndex.sortKey(b)))
+                .collect(Collectors.toList());
+        assertEquals(List.of("1.9", "1.9.0", "01.9.1", "1.10", "14.ea.3", "14", "14.0.1", "17", "17.0", "17.0.1", "170"), versions);
+        // pre-releases sort below the release
+        assertTrue(VersionIndex.sortKey("8.5-rc-1").compareTo(VersionIndex.sortKey("8.5")) < 0);
+        assertTrue(VersionIndex.sortKey("8.5-rc-1").compareTo(VersionIndex.sortKey("8.5-rc-2")) < 0);
+        assertTrue(VersionIndex.sortKey("8.4").compareTo(VersionIndex.sortKey("8.5-rc-1")) < 0);
+        assertTrue(VersionIndex.sortKey("21.ea.35").compareTo(VersionIndex.sortKey("21")) < 0);
+    }
+
+    @Test
+    void preRelease() {
+        VersionIndex index = new VersionIndex(Stream.of("8.4", "8.5-rc-1", "8.5", "8.6-rc-1", "21.ea.35", "21")
+                .map(e -> new Version("gradle", false, e, "")).collect(Collectors.toList()));
+        // the release is newer than its own pre-releases
+        assertEquals("8.6-rc-1", index.latest("8").orElseThrow().getIdentifier());
+        assertEquals("8.5", index.latest("8.5").orElseThrow().getIdentifier());
+        assertEquals("21", index.latest("21").orElseThrow().getIdentifier());
+        assertEquals("21", index.latest().orElseThrow().getIdentifier());
+        assertEquals(List.of("8.5-rc-1", "8.5"), identifiers(index.prefix("8.5")));
+        assertEquals(List.of("21", "21.ea.35", "8.6-rc-1", "8.5", "8.5-rc-1", "8.4"), identifiers(index.newestFirstByVendor()));
+    }
+
+    @Test
+    void java() throws IOException, URISyntaxException {
+        VersionIndex index = new VersionIndex(new SDK().parseVersions("java", read("list-java.txt")));
+
+        assertEquals("19.1.0-grl", index.latest().orElseThrow().getIdentifier());
+        assertEquals("12.0.1-zulu", index.latest("zulu", "12").orElseThrow().getIdentifier());
+        // vendor name works too
+        assertEquals("11.0.3-zulu", index.latest("Azul Zulu", "11").orElseThrow().getIdentifier());
+        assertEquals("8.0.212-amzn", index.latest("amzn", "8.0").orElseThrow().getIdentifier());
+        assertFalse(index.latest("amzn", "12").isPresent());
+        assertFalse(index.latest("unknown", "12").isPresent());
+        // whole numbers only
+        assertFalse(index.latest("zulu", "1").isPresent());
+
+        assertEquals(List.of("8.0.202-amzn", "8.0.212-amzn"), identifiers(index.range("amzn", "8", "9")));
+        assertEquals(List.of("9.0.4-open", "9.0.7-zulu"), identifiers(index.range("9", "10")));
+        assertEquals(List.of("13.ea.27-open", "14.ea.3-open"), identifiers(index.range("13", "15")));
+        assertEquals(List.of("9.0.4-open", "9.0.7-zulu"), identifiers(index.prefix("9")));
+
+        assertEquals(List.of("12.0.1-zulu", "11.0.3-zulu", "10.0.2-zulu", "9.0.7-zulu", "8.0.212-zulu", "7.0.222-zulu"),
+                identifiers(index.latestPerMajor("zulu")));
+        assertEquals("19.1.0-grl", index.latestPerMajor().get(0).getIdentifier());
+
+        List<Version> menuOrder = index.newestFirstByVendor();
+        assertEquals(index.sorted().size(), menuOrder.size());
+        assertEquals(List.of("adpt", "amzn", "zulu", "zulufx", "librca", "grl", "open", "sapmchn"), index.getVendors());
+        assertEquals(List.of("12.0.1.j9-adpt", "12.0.1.hs-adpt", "11.0.3.j9-adpt"), identifiers(menuOrder.subList(0, 3)));
+        assertEquals(List.of("12.0.1-sapmchn", "11.0.3-sapmchn"), identifiers(menuOrder.subList(menuOrder.size() - 2, menuOrder.size())));
+    }
+
+    @Test
+    void maven() throws IOException, URISyntaxException {
+        List<Version> versions = new ArrayList<>(new SDK().parseVersions("maven", read("list-maven.txt")));
+        versions.add(new Version("maven", false, "3.10.1", ""));
+        VersionIndex index = new VersionIndex(versions);
+
+        assertEquals("3.10.1", index.latest().orElseThrow().getIdentifier());
+        assertEquals("3.5.4", index.latest("3.5").orElseThrow().getIdentifier());
+        assertEquals(List.of("3.10.1", "2.2.1"), identifiers(index.latestPerMajor()));
+        assertEquals(List.of("3.10.1", "3.6.1", "3.6.0", "3.5.4", "3.5.3", "3.5.2", "3.5.0", "3.3.9", "2.2.1"),
+                identifiers(index.newestFirstByVendor()));
+        assertEquals(List.of("3.6.0", "3.6.1", "3.10.1"), identifiers(index.range("3.6", null)));
+        assertEquals(List.of("2.2.1", "3.3.9"), identifiers(index.range(null, "3.5")));
+        assertTrue(index.getVendors().isEmpty());
+    }
+
+    private static List<String> identifiers(List<Version> versions) {
+        return versions.stream().map(Version::getIdentifier).collect(Collectors.toList());
+    }
+
+    private static String read(String name) throws IOException, URISyntaxException {
+        return Files.readString(Paths.get(VersionIndexTest.class.getResource("/shogun/" + name).toURI()));
+    }
+}
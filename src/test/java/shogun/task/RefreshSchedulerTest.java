@@ -0,0 +1,48 @@
+package shogun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshSchedulerTest {
+
+    @Test
+    void nextInterval() {
+        assertEquals(200, RefreshScheduler.nextInterval(100, RefreshScheduler.Outcome.UNCHANGED, 100, 1000));
+        assertEquals(400, RefreshScheduler.nextInterval(200, RefreshScheduler.Outcome.OFFLINE, 100, 1000));
+        assertEquals(1000, RefreshScheduler.nextInterval(800, RefreshScheduler.Outcome.UNCHANGED, 100, 1000));
+        assertEquals(100, RefreshScheduler.nextInterval(800, RefreshScheduler.Outcome.CHANGED, 100, 1000));
+    }
+
+    @Test
+    void withJitter() {
+        for (int i = 0; i < 1000; i++) {
+            long delay = RefreshScheduler.withJitter(1000);
+            assertTrue(900 <= delay && delay <= 1100, () -> "unexpected delay: " + delay);
+        }
+    }
+
+    @Test
+    void postponedWhileBusy() throws InterruptedException {
+        AtomicBoolean busy = new AtomicBoolean(true);
+        CountDownLatch refreshed = new CountDownLatch(2);
+        RefreshScheduler scheduler = new RefreshScheduler(() -> {
+            assertFalse(busy.get());
+            refreshed.countDown();
+            return RefreshScheduler.Outcome.CHANGED;
+        }, busy::get, Duration.ofMillis(20), Duration.ofMillis(100), Duration.ofMillis(10));
+        try {
+            scheduler.start();
+            assertFalse(refreshed.await(100, TimeUnit.MILLISECONDS));
+            busy.set(false);
+            assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.stop();
+        }
+    }
+}